@@ -0,0 +1,118 @@
+package benchmark;
+
+import scheduling.Model.Appointment;
+import scheduling.Model.Contact;
+import java.util.Date;
+
+/**
+ * Measures heap held per appointment, comparing Appointment with the mutable Date-based class it replaced.
+ * Appointments are built the way a result set hands values over, with a new String for every location and type,
+ * while titles and descriptions are shared so only the per-appointment overhead is counted.
+ * Usage: AppointmentHeapBenchmark [appointments] (defaults to 1000000)
+ * @author Jason Philpy
+ */
+public class AppointmentHeapBenchmark {
+
+    /**
+     * Most bytes an appointment may hold beyond its title and description
+     */
+    private static final long TARGET_BYTES = 80;
+
+    private static final String[] LOCATIONS = {"Phoenix, Arizona", "White Plains, New York", "Montreal, Canada",
+            "London, England"};
+    private static final String[] TYPES = {"Planning Session", "De-Briefing", "Check-in", "Follow-up"};
+
+    /**
+     * Keeps the built appointments reachable while heap is measured
+     */
+    private static Object[] retained;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Contact[] contacts = {new Contact(1, "Anika Costa", "acoding@company.com"),
+                new Contact(2, "Daniel Garcia", "dgarcia@company.com"),
+                new Contact(3, "Li Lee", "lee@company.com")};
+        long base = System.currentTimeMillis();
+        System.out.println("implementation,appointments,bytes_per_appointment,target");
+
+        long before = usedHeap();
+        LegacyAppointment[] legacy = new LegacyAppointment[count];
+        for (int i = 0; i < count; i++) {
+            Contact contact = contacts[i % contacts.length];
+            legacy[i] = new LegacyAppointment(i, "Title", "Description", new String(LOCATIONS[i % 4]),
+                    new String(TYPES[i % 4]), new Date(base + i * 60_000L), new Date(base + i * 60_000L + 30_000),
+                    i, contact, 1);
+        }
+        retained = legacy;
+        long legacyBytes = (usedHeap() - before - arrayBytes(count)) / count;
+        System.out.println("legacy," + count + "," + legacyBytes + "," + TARGET_BYTES);
+        retained = null;
+        legacy = null;
+
+        before = usedHeap();
+        Appointment[] compact = new Appointment[count];
+        for (int i = 0; i < count; i++) {
+            Contact contact = contacts[i % contacts.length];
+            compact[i] = new Appointment(i, "Title", "Description", new String(LOCATIONS[i % 4]),
+                    new String(TYPES[i % 4]), base + i * 60_000L, base + i * 60_000L + 30_000, i, contact, 1, base);
+        }
+        retained = compact;
+        long compactBytes = (usedHeap() - before - arrayBytes(count)) / count;
+        System.out.println("compact," + count + "," + compactBytes + "," + TARGET_BYTES);
+        if (compactBytes > TARGET_BYTES) {
+            System.out.println("Compact appointment is over the " + TARGET_BYTES + " byte target.");
+        }
+    }
+
+    /**
+     * @return heap in use after collecting garbage
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Estimates the size of the array holding the appointments so it isn't counted against them
+     * @param count array length
+     * @return bytes for the array, assuming compressed references
+     */
+    private static long arrayBytes(int count) {
+        return 16 + 4L * count;
+    }
+
+    /**
+     * The previous Appointment: two Date objects, a copied contact name and unshared strings
+     */
+    private static class LegacyAppointment {
+        private final int id;
+        private final String title;
+        private final String description;
+        private final String location;
+        private final String type;
+        private final Date start;
+        private final Date end;
+        private final int customerID;
+        private final int contactID;
+        private final String contactName;
+        private final int userID;
+
+        private LegacyAppointment(int id, String title, String description, String location, String type,
+                                  Date start, Date end, int customerID, Contact contact, int userID) {
+            this.id = id;
+            this.title = title;
+            this.description = description;
+            this.location = location;
+            this.type = type;
+            this.start = start;
+            this.end = end;
+            this.customerID = customerID;
+            this.contactID = contact.getId();
+            this.contactName = contact.getName();
+            this.userID = userID;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package benchmark;
+
+import helper.JDBC;
+import scheduling.Model.Appointment;
+import scheduling.Model.DBModel;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Measures the cost of turning appointment Start/End values into dates.  Without arguments it compares, in memory,
+ * string parsing with a SimpleDateFormat per row, string parsing with one SimpleDateFormat per load, and reading
+ * native LocalDateTime values.  With "db" it also seeds the appointments table and times DBModel.getAllAppointments
+ * end to end.  Seeded rows are removed afterwards.
+ * Usage: AppointmentMappingBenchmark [rows] [db] (rows defaults to 1000000)
+ * @author Jason Philpy
+ */
+public class AppointmentMappingBenchmark {
+
+    /**
+     * Title prefix used to find and clean up seeded appointments
+     */
+    private static final String SEED_PREFIX = "bench-appt-";
+
+    private static final int ROUNDS = 5;
+
+    /**
+     * Keeps results alive so mapping isn't optimized away
+     */
+    private static volatile long sink;
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        boolean db = args.length > 1 && args[1].equals("db");
+        String[] strings = new String[rows];
+        LocalDateTime[] natives = new LocalDateTime[rows];
+        LocalDateTime base = LocalDateTime.of(2021, 1, 1, 8, 0);
+        for (int i = 0; i < rows; i++) {
+            natives[i] = base.plusMinutes(i * 30L);
+            strings[i] = natives[i].toString().replace('T', ' ') + ":00";
+        }
+        System.out.println("mapping,rows,millis,bytes_per_row");
+        for (int round = 0; round < ROUNDS; round++) {
+            boolean print = round == ROUNDS - 1;
+            measure("formatter_per_row", rows, print, () -> {
+                long total = 0;
+                for (String value : strings) {
+                    SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+                    formatter.setTimeZone(TimeZone.getTimeZone("UTC"));
+                    total += formatter.parse(value).getTime();
+                }
+                return total;
+            });
+            measure("formatter_per_load", rows, print, () -> {
+                long total = 0;
+                SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+                formatter.setTimeZone(TimeZone.getTimeZone("UTC"));
+                for (String value : strings) {
+                    total += formatter.parse(value).getTime();
+                }
+                return total;
+            });
+            measure("native_local_date_time", rows, print, () -> {
+                long total = 0;
+                for (LocalDateTime value : natives) {
+                    total += new Date(value.toEpochSecond(ZoneOffset.UTC) * 1000 + value.getNano() / 1_000_000)
+                            .getTime();
+                }
+                return total;
+            });
+        }
+        if (db) {
+            JDBC.openConnection();
+            try {
+                seedAppointments(rows);
+                DBModel.getAllAppointments(); // warm up
+                measure("db_get_all_appointments", rows, true, () -> {
+                    List<Appointment> appointments = DBModel.getAllAppointments();
+                    return appointments.size();
+                });
+            } finally {
+                removeSeededAppointments();
+                DBModel.invalidateAppointmentIndexes();
+                JDBC.closeConnection();
+            }
+        }
+    }
+
+    /**
+     * Times one mapping and optionally prints its time and bytes allocated per row
+     * @param name name of the mapping
+     * @param rows rows mapped
+     * @param print true to print the result
+     * @param mapping the mapping to run
+     * @throws Exception if the mapping fails
+     */
+    private static void measure(String name, int rows, boolean print, Mapping mapping) throws Exception {
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        sink += mapping.run();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        long bytes = allocatedBytes() - bytesBefore;
+        if (print) {
+            System.out.println(name + "," + rows + "," + millis + "," + (bytes < 0 ? -1 : bytes / rows));
+        }
+    }
+
+    /**
+     * @return bytes allocated by this thread so far, or -1 if the JVM doesn't report it
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(
+                    Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * Inserts synthetic half-hour appointments in batches, one after another, under the first customer, user and
+     * contact
+     * @param count number of appointments to insert
+     * @throws SQLException for SQL error
+     */
+    private static void seedAppointments(int count) throws SQLException {
+        String sql = "INSERT INTO appointments (Title, Description, Location, Type, Start, End, Create_Date, " +
+                "Created_By, Last_Update, Last_Updated_By, Customer_ID, User_ID, Contact_ID) VALUES (?, ?, ?, ?, " +
+                "?, ?, NOW(), 'benchmark', NOW(), 'benchmark', ?, ?, ?)";
+        try (Connection conn = JDBC.getConnection();
+             Statement stmt = conn.createStatement();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ResultSet rs = stmt.executeQuery("SELECT (SELECT MIN(Customer_ID) FROM customers) AS Customer_ID, " +
+                    "(SELECT MIN(User_ID) FROM users) AS User_ID, " +
+                    "(SELECT MIN(Contact_ID) FROM contacts) AS Contact_ID");
+            rs.next();
+            int customerID = rs.getInt("Customer_ID");
+            int userID = rs.getInt("User_ID");
+            int contactID = rs.getInt("Contact_ID");
+            LocalDateTime start = LocalDateTime.of(2000, 1, 1, 13, 0);
+            conn.setAutoCommit(false);
+            for (int i = 0; i < count; i++) {
+                ps.setString(1, SEED_PREFIX + i);
+                ps.setString(2, "Benchmark");
+                ps.setString(3, "Benchmark");
+                ps.setString(4, "Benchmark");
+                ps.setObject(5, start.plusMinutes(i * 30L));
+                ps.setObject(6, start.plusMinutes(i * 30L + 30));
+                ps.setInt(7, customerID);
+                ps.setInt(8, userID);
+                ps.setInt(9, contactID);
+                ps.addBatch();
+                if (i % 1000 == 999) {
+                    ps.executeBatch();
+                    conn.commit();
+                }
+            }
+            ps.executeBatch();
+            conn.commit();
+        }
+    }
+
+    /**
+     * Deletes every appointment created by seedAppointments
+     * @throws SQLException for SQL error
+     */
+    private static void removeSeededAppointments() throws SQLException {
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement("DELETE FROM appointments WHERE Title LIKE ?")) {
+            ps.setString(1, SEED_PREFIX + "%");
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * A mapping over every row, returning a checksum
+     */
+    private interface Mapping {
+        long run() throws ParseException, SQLException;
+    }
+}
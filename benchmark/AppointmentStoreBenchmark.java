@@ -0,0 +1,118 @@
+package benchmark;
+
+import scheduling.Model.Appointment;
+import scheduling.Model.AppointmentStore;
+import scheduling.Model.Contact;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Compares AppointmentStore against walking a list of appointments with Date.after and Date.before, for the week
+ * window the appointment view shows and for the contact and customer filters the reports use.
+ * Usage: AppointmentStoreBenchmark [appointments] (defaults to 10000000, run with -Xmx3g or more)
+ * @author Jason Philpy
+ */
+public class AppointmentStoreBenchmark {
+
+    private static final int ROUNDS = 5;
+    private static final long HALF_HOUR = 30 * 60 * 1000;
+    private static final long WEEK = 7 * 24 * 60 * 60 * 1000;
+
+    /**
+     * Keeps results alive so filters aren't optimized away
+     */
+    private static volatile long sink;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        Contact[] contacts = {new Contact(1, "Anika Costa", "acoding@company.com"),
+                new Contact(2, "Daniel Garcia", "dgarcia@company.com"),
+                new Contact(3, "Li Lee", "lee@company.com")};
+        long base = 946_684_800_000L; // 2000-01-01 UTC
+        List<Appointment> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long start = base + i * HALF_HOUR;
+            list.add(new Appointment(i + 1, "Title", "Description", "Phoenix, Arizona", "Planning Session", start,
+                    start + HALF_HOUR, i % 50 + 1, contacts[i % contacts.length], i % 2 + 1));
+        }
+        long buildStart = System.nanoTime();
+        AppointmentStore store = new AppointmentStore();
+        store.load(list);
+        System.out.println("load," + count + "," + (System.nanoTime() - buildStart) / 1_000_000 + "ms");
+
+        long weekStart = base + (count / 2) * HALF_HOUR;
+        Date windowStart = new Date(weekStart);
+        Date windowEnd = new Date(weekStart + WEEK);
+        System.out.println("filter,implementation,appointments,matches,micros");
+        for (int round = 0; round < ROUNDS; round++) {
+            boolean print = round == ROUNDS - 1;
+
+            long start = System.nanoTime();
+            int matches = 0;
+            for (Appointment appt : list) {
+                Date apptStart = appt.getStart();
+                if (!apptStart.before(windowStart) && apptStart.before(windowEnd)) {
+                    matches++;
+                }
+            }
+            report(print, "week", "list", count, matches, start);
+
+            start = System.nanoTime();
+            matches = store.find(windowStart.getTime(), windowEnd.getTime(), AppointmentStore.ANY,
+                    AppointmentStore.ANY, AppointmentStore.ANY).size();
+            report(print, "week", "store", count, matches, start);
+
+            start = System.nanoTime();
+            matches = 0;
+            for (Appointment appt : list) {
+                if (appt.getContactID() == 2) {
+                    matches++;
+                }
+            }
+            report(print, "contact", "list", count, matches, start);
+
+            start = System.nanoTime();
+            matches = store.count(Long.MIN_VALUE, Long.MAX_VALUE, 2, AppointmentStore.ANY, AppointmentStore.ANY);
+            report(print, "contact", "store", count, matches, start);
+
+            start = System.nanoTime();
+            matches = 0;
+            for (Appointment appt : list) {
+                Date apptStart = appt.getStart();
+                if (appt.getCustomerID() == 7 && !apptStart.before(windowStart) && apptStart.before(windowEnd)) {
+                    matches++;
+                }
+            }
+            report(print, "customer_week", "list", count, matches, start);
+
+            start = System.nanoTime();
+            matches = store.count(windowStart.getTime(), windowEnd.getTime(), AppointmentStore.ANY, 7,
+                    AppointmentStore.ANY);
+            report(print, "customer_week", "store", count, matches, start);
+        }
+
+        long putStart = System.nanoTime();
+        store.put(new Appointment(count + 1, "Title", "Description", "Phoenix, Arizona", "Planning Session",
+                weekStart + 60_000, weekStart + HALF_HOUR, 1, contacts[0], 1));
+        System.out.println("put," + count + "," + (System.nanoTime() - putStart) / 1000 + "us");
+    }
+
+    /**
+     * Prints one timed filter
+     * @param print true to print
+     * @param filter name of the filter
+     * @param implementation name of the implementation
+     * @param count appointments searched
+     * @param matches appointments found
+     * @param start System.nanoTime when the filter started
+     */
+    private static void report(boolean print, String filter, String implementation, int count, int matches,
+                               long start) {
+        long micros = (System.nanoTime() - start) / 1000;
+        sink += matches;
+        if (print) {
+            System.out.println(filter + "," + implementation + "," + count + "," + matches + "," + micros);
+        }
+    }
+}
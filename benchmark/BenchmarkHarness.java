@@ -0,0 +1,196 @@
+package benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Small warmup-then-measure timing loop for the benchmark suite.  Each case is called repeatedly until an iteration
+ * has run for at least ITERATION_MILLIS, warmup iterations are discarded, and the mean and standard deviation of
+ * the measured iterations are reported per unit of work.  Results are printed and appended to a CSV file, and can
+ * be compared against an earlier results file to flag regressions.
+ * This is not JMH: every case runs in the same JVM with no forking, so earlier cases shape the JIT profile of later
+ * ones, and results are only kept alive through a volatile sum rather than a Blackhole.  Its numbers are meant for
+ * comparing runs of the same suite on the same machine, not as absolute costs.
+ * @author Jason Philpy
+ */
+public class BenchmarkHarness {
+
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASURED_ITERATIONS = 5;
+    private static final long ITERATION_MILLIS = 200;
+
+    /**
+     * How much slower than the baseline a result may be before it counts as a regression
+     */
+    private static final double REGRESSION_THRESHOLD = 1.10;
+
+    private static final String HEADER = "run,benchmark,rows,ns_per_unit,error_ns,units_per_call,calls";
+
+    private final String run = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date());
+    private final List<Result> results = new ArrayList<>();
+
+    /**
+     * Keeps results alive so work isn't optimized away
+     */
+    private static volatile long sink;
+
+    /**
+     * Warms up and measures one case
+     * @param benchmark name of the case
+     * @param rows rows the case works over
+     * @param unitsPerCall units of work each call does, such as rows mapped, used to report time per unit
+     * @param call the work, returning any value derived from its result
+     * @return the result
+     * @throws Exception if the work fails
+     */
+    public Result run(String benchmark, int rows, long unitsPerCall, Callable<Long> call) throws Exception {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            iterate(call);
+        }
+        double[] nanosPerCall = new double[MEASURED_ITERATIONS];
+        long calls = 0;
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            long[] iteration = iterate(call);
+            nanosPerCall[i] = (double) iteration[0] / iteration[1];
+            calls += iteration[1];
+        }
+        double mean = 0;
+        for (double nanos : nanosPerCall) {
+            mean += nanos / MEASURED_ITERATIONS;
+        }
+        double variance = 0;
+        for (double nanos : nanosPerCall) {
+            variance += (nanos - mean) * (nanos - mean) / MEASURED_ITERATIONS;
+        }
+        Result result = new Result(benchmark, rows, mean / unitsPerCall, Math.sqrt(variance) / unitsPerCall,
+                unitsPerCall, calls);
+        results.add(result);
+        System.out.println(result.toCsv(run));
+        return result;
+    }
+
+    /**
+     * Calls the work until the iteration time is used up
+     * @param call the work
+     * @return elapsed nanoseconds and number of calls
+     * @throws Exception if the work fails
+     */
+    private static long[] iterate(Callable<Long> call) throws Exception {
+        long start = System.nanoTime();
+        long deadline = start + ITERATION_MILLIS * 1_000_000;
+        long calls = 0;
+        long now;
+        do {
+            sink += call.call();
+            calls++;
+            now = System.nanoTime();
+        } while (now < deadline);
+        return new long[]{now - start, calls};
+    }
+
+    /**
+     * Prints the column names for the rows run prints
+     */
+    public static void printHeader() {
+        System.out.println(HEADER);
+    }
+
+    /**
+     * Appends every result to a CSV file, writing a header first if the file is new
+     * @param path file to append to
+     */
+    public void write(String path) {
+        File file = new File(path);
+        boolean newFile = !file.exists();
+        try (FileWriter writer = new FileWriter(file, true)) {
+            if (newFile) {
+                writer.write(HEADER + "\n");
+            }
+            for (Result result : results) {
+                writer.write(result.toCsv(run) + "\n");
+            }
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Compares every result with the latest result for the same case and size in an earlier results file
+     * @param path earlier results file
+     * @return number of results more than 10% slower than the baseline
+     */
+    public int compare(String path) {
+        Map<String, Double> baseline = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] columns = line.split(",");
+                if (columns.length >= 4 && !line.equals(HEADER)) {
+                    baseline.put(columns[1] + "," + columns[2], Double.parseDouble(columns[3]));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.out.println("Could not read baseline " + path + ": " + e.getMessage());
+            return 0;
+        }
+        int regressions = 0;
+        System.out.println("benchmark,rows,baseline_ns,ns,ratio,status");
+        for (Result result : results) {
+            Double before = baseline.get(result.benchmark + "," + result.rows);
+            if (before == null || before == 0) {
+                continue;
+            }
+            double ratio = result.nanosPerUnit / before;
+            boolean regressed = ratio > REGRESSION_THRESHOLD;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.println(result.benchmark + "," + result.rows + "," + format(before) + "," +
+                    format(result.nanosPerUnit) + "," + String.format(Locale.ROOT, "%.2f", ratio) + "," +
+                    (regressed ? "REGRESSION" : "ok"));
+        }
+        return regressions;
+    }
+
+    private static String format(double nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos);
+    }
+
+    /**
+     * Time per unit of work for one case and size
+     */
+    public static class Result {
+        private final String benchmark;
+        private final int rows;
+        private final double nanosPerUnit;
+        private final double errorNanos;
+        private final long unitsPerCall;
+        private final long calls;
+
+        private Result(String benchmark, int rows, double nanosPerUnit, double errorNanos, long unitsPerCall,
+                       long calls) {
+            this.benchmark = benchmark;
+            this.rows = rows;
+            this.nanosPerUnit = nanosPerUnit;
+            this.errorNanos = errorNanos;
+            this.unitsPerCall = unitsPerCall;
+            this.calls = calls;
+        }
+
+        private String toCsv(String run) {
+            return run + "," + benchmark + "," + rows + "," + format(nanosPerUnit) + "," + format(errorNanos) + "," +
+                    unitsPerCall + "," + calls;
+        }
+    }
+}
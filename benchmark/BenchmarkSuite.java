@@ -0,0 +1,196 @@
+package benchmark;
+
+import scheduling.Model.Appointment;
+import scheduling.Model.AppointmentCountCube;
+import scheduling.Model.AppointmentIntervalIndex;
+import scheduling.Model.AppointmentStore;
+import scheduling.Model.Contact;
+import scheduling.Model.DBModel;
+import scheduling.Model.TimeFormatter;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Runs the timing checks regressions are tracked with, at each table size: row mapping through DBModel's
+ * appointment reader, overlap checks, the type/month and contact reports, the week filter behind
+ * AppointmentViewController.updateTable, and date formatting and parsing.  Rows are synthetic, shaped like
+ * APPOINTMENT_SELECT and served from an in-memory result set, so no database is needed and mapping times include
+ * the small cost of producing each value.  Results are appended to benchmark_results.csv, or the file named by
+ * -Dbenchmark.results.  With -Dbenchmark.baseline=file, results are compared to the latest earlier run of each
+ * case and the suite exits with status 1 if any is more than 10% slower.  Timing goes through BenchmarkHarness, a
+ * single-JVM loop rather than JMH, so compare results only against baselines from the same machine.
+ * Usage: BenchmarkSuite [rows ...] (defaults to 10000 1000000 10000000, run with -Xmx4g or more)
+ * @author Jason Philpy
+ */
+public class BenchmarkSuite {
+
+    private static final long HALF_HOUR = 30 * 60 * 1000;
+    private static final long WEEK = 7 * 24 * 60 * 60 * 1000;
+    private static final long BASE = 946_684_800_000L; // 2000-01-01 UTC
+    private static final String[] TYPES = {"Planning Session", "De-Briefing", "Check-in", "Follow-up"};
+    private static final Contact[] CONTACTS = {new Contact(1, "Anika Costa", "acoding@company.com"),
+            new Contact(2, "Daniel Garcia", "dgarcia@company.com"),
+            new Contact(3, "Li Lee", "lee@company.com")};
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = {10_000, 1_000_000, 10_000_000};
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+        BenchmarkHarness harness = new BenchmarkHarness();
+        BenchmarkHarness.printHeader();
+        formatting(harness);
+        for (int rows : sizes) {
+            atSize(harness, rows);
+        }
+        harness.write(System.getProperty("benchmark.results", "benchmark_results.csv"));
+        String baseline = System.getProperty("benchmark.baseline");
+        if (baseline != null && harness.compare(baseline) > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Date formatting and parsing, which don't depend on table size
+     * @param harness harness to run with
+     */
+    private static void formatting(BenchmarkHarness harness) throws Exception {
+        long[] counter = {0};
+        harness.run("format_display", 0, 1, () ->
+                (long) TimeFormatter.getTimeStringForDisplay(BASE + counter[0]++ % 100_000 * HALF_HOUR).hashCode());
+        harness.run("format_utc", 0, 1, () ->
+                (long) TimeFormatter.getTimeStringUTC(new Date(BASE + counter[0]++ % 100_000 * HALF_HOUR))
+                        .hashCode());
+        harness.run("parse_est", 0, 1, () ->
+                TimeFormatter.getESTDateFromString("06/" + (counter[0]++ % 28 + 1) + "/21 8:00 AM").getTime());
+    }
+
+    /**
+     * Every benchmark that works over the appointments table, at one size
+     * @param harness harness to run with
+     * @param rows number of appointments
+     */
+    private static void atSize(BenchmarkHarness harness, int rows) throws Exception {
+        Method reader = DBModel.class.getDeclaredMethod("readAppointments", ResultSet.class, List.class);
+        reader.setAccessible(true);
+        harness.run("row_mapping", rows, rows, () -> {
+            List<Appointment> mapped = new ArrayList<>(rows);
+            reader.invoke(null, appointmentRows(rows), mapped);
+            return (long) mapped.size();
+        });
+
+        List<Appointment> appointments = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            appointments.add(appointment(i));
+        }
+        AppointmentStore store = new AppointmentStore();
+        store.load(appointments);
+        AppointmentIntervalIndex index = new AppointmentIntervalIndex();
+        AppointmentCountCube cube = new AppointmentCountCube();
+        for (Appointment appt : appointments) {
+            index.put(appt.getId(), appt.getStartMillis(), appt.getEndMillis());
+            cube.put(appt.getId(), appt.getType(), appt.getStartMillis());
+        }
+        appointments = null;
+
+        long[] counter = {0};
+        harness.run("overlap_check", rows, 1, () -> {
+            long start = BASE + next(counter, rows) * HALF_HOUR + HALF_HOUR / 2;
+            return (long) index.findOverlaps(start, start + HALF_HOUR).size();
+        });
+        harness.run("report_type_month", rows, 1, () -> {
+            long row = next(counter, rows);
+            LocalDateTime month = LocalDateTime.ofEpochSecond((BASE + row * HALF_HOUR) / 1000, 0, ZoneOffset.UTC);
+            return (long) cube.getCount(month.getYear(), month.getMonthValue(), TYPES[(int) (row % TYPES.length)]);
+        });
+        harness.run("report_contact", rows, 1, () ->
+                (long) store.count(Long.MIN_VALUE, Long.MAX_VALUE, (int) (counter[0]++ % CONTACTS.length) + 1,
+                        AppointmentStore.ANY, AppointmentStore.ANY));
+        harness.run("view_week", rows, 1, () -> {
+            long start = BASE + next(counter, rows) * HALF_HOUR;
+            return (long) store.find(start, start + WEEK, AppointmentStore.ANY, AppointmentStore.ANY,
+                    AppointmentStore.ANY).size();
+        });
+    }
+
+    /**
+     * Steps through rows in a scattered but repeatable order
+     * @param counter call counter, incremented
+     * @param rows number of rows
+     * @return a row number
+     */
+    private static long next(long[] counter, int rows) {
+        return counter[0]++ * 7_919 % rows;
+    }
+
+    /**
+     * Builds the appointment for a row, with times every half hour and contacts, customers, users and types
+     * spread evenly
+     * @param row row number
+     * @return the appointment
+     */
+    private static Appointment appointment(int row) {
+        long start = BASE + row * HALF_HOUR;
+        return new Appointment(row + 1, "Title " + row % 100, "Description", "Phoenix, Arizona",
+                TYPES[row % TYPES.length], start, start + HALF_HOUR, row % 1000 + 1, CONTACTS[row % CONTACTS.length],
+                row % 2 + 1, start);
+    }
+
+    /**
+     * A forward-only result set of synthetic rows with the columns APPOINTMENT_SELECT returns
+     * @param rows number of rows
+     * @return the result set
+     */
+    private static ResultSet appointmentRows(int rows) {
+        int[] cursor = {-1};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    int row = cursor[0];
+                    long start = BASE + row * HALF_HOUR;
+                    switch (method.getName()) {
+                        case "next":
+                            return ++cursor[0] < rows;
+                        case "close":
+                            return null;
+                        case "getInt":
+                            switch ((String) args[0]) {
+                                case "Appointment_ID": return row + 1;
+                                case "Customer_ID": return row % 1000 + 1;
+                                case "User_ID": return row % 2 + 1;
+                                case "Contact_ID": return CONTACTS[row % CONTACTS.length].getId();
+                                default: throw new IllegalArgumentException((String) args[0]);
+                            }
+                        case "getString":
+                            switch ((String) args[0]) {
+                                case "Title": return "Title " + row % 100;
+                                case "Description": return "Description";
+                                case "Location": return new String("Phoenix, Arizona");
+                                case "Type": return new String(TYPES[row % TYPES.length]);
+                                case "Contact_Name": return CONTACTS[row % CONTACTS.length].getName();
+                                case "Email": return "contact@company.com";
+                                default: throw new IllegalArgumentException((String) args[0]);
+                            }
+                        case "getObject":
+                            switch ((String) args[0]) {
+                                case "Start":
+                                case "Last_Update":
+                                    return LocalDateTime.ofEpochSecond(start / 1000, 0, ZoneOffset.UTC);
+                                case "End":
+                                    return LocalDateTime.ofEpochSecond((start + HALF_HOUR) / 1000, 0, ZoneOffset.UTC);
+                                default: throw new IllegalArgumentException((String) args[0]);
+                            }
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
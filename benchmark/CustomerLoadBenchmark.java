@@ -0,0 +1,99 @@
+package benchmark;
+
+import helper.ConnectionPool;
+import helper.JDBC;
+import scheduling.Model.Customer;
+import scheduling.Model.DBModel;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Measures DBModel.getAllCustomers as the customers table grows.  Seeds synthetic customers in batches, loads the
+ * full list, and reports the number of statements run and the load time.  Seeded rows are removed afterwards.
+ * Usage: CustomerLoadBenchmark [size ...] (defaults to 100 1000 10000 50000)
+ * @author Jason Philpy
+ */
+public class CustomerLoadBenchmark {
+
+    /**
+     * Name prefix used to find and clean up seeded customers
+     */
+    private static final String SEED_PREFIX = "bench-customer-";
+
+    public static void main(String[] args) throws SQLException {
+        int[] sizes = {100, 1000, 10000, 50000};
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+        JDBC.openConnection();
+        ConnectionPool pool = JDBC.getPool();
+        try {
+            System.out.println("seeded,loaded,statements,millis");
+            for (int size : sizes) {
+                seedCustomers(size);
+                DBModel.getAllCustomers(); // warm up
+                long statementsBefore = pool.getStatementCount();
+                long start = System.nanoTime();
+                List<Customer> customers = DBModel.getAllCustomers();
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                long statements = pool.getStatementCount() - statementsBefore;
+                System.out.println(size + "," + customers.size() + "," + statements + "," + millis);
+                removeSeededCustomers();
+            }
+        } finally {
+            removeSeededCustomers();
+            JDBC.closeConnection();
+        }
+    }
+
+    /**
+     * Inserts synthetic customers in batches under the first division
+     * @param count number of customers to insert
+     * @throws SQLException for SQL error
+     */
+    private static void seedCustomers(int count) throws SQLException {
+        String sql = "INSERT INTO customers (Customer_Name, Address, Postal_Code, Phone, Create_Date, Created_By, " +
+                "Last_Update, Last_Updated_By, Division_ID) VALUES (?, ?, ?, ?, NOW(), 'benchmark', NOW(), " +
+                "'benchmark', ?)";
+        try (Connection conn = JDBC.getConnection();
+             Statement stmt = conn.createStatement();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ResultSet rs = stmt.executeQuery("SELECT MIN(Division_ID) AS Division_ID FROM first_level_divisions");
+            rs.next();
+            int divisionID = rs.getInt("Division_ID");
+            conn.setAutoCommit(false);
+            for (int i = 0; i < count; i++) {
+                ps.setString(1, SEED_PREFIX + i);
+                ps.setString(2, i + " Benchmark Street");
+                ps.setString(3, "00000");
+                ps.setString(4, "555-0100");
+                ps.setInt(5, divisionID);
+                ps.addBatch();
+                if (i % 1000 == 999) {
+                    ps.executeBatch();
+                }
+            }
+            ps.executeBatch();
+            conn.commit();
+        }
+    }
+
+    /**
+     * Deletes every customer created by seedCustomers
+     * @throws SQLException for SQL error
+     */
+    private static void removeSeededCustomers() throws SQLException {
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement("DELETE FROM customers WHERE Customer_Name LIKE ?")) {
+            ps.setString(1, SEED_PREFIX + "%");
+            ps.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package benchmark;
+
+import helper.JDBC;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fills the client_schedule tables with synthetic data for sizing tests.  Countries, divisions, contacts, users,
+ * customers and appointments are added on top of the existing rows, all marked as created by "generator" so they
+ * can be removed again with the clean option.  Values follow skewed distributions so a few divisions, contacts
+ * and customers are much busier than the rest, and appointments fall on weekdays within business hours (8am-10pm
+ * EST) with realistic lengths.  Appointments aren't checked for overlaps.  The random seed is fixed so runs are
+ * repeatable.  Rows are written as multi-row inserts of BATCH_ROWS rows, committed per batch.
+ * Usage: DataGenerator [customers] [appointments] [contacts] [users] (defaults to 1000000 50000000 200 500)
+ *        DataGenerator clean
+ * @author Jason Philpy
+ */
+public class DataGenerator {
+
+    /**
+     * Created_By and Last_Updated_By of every generated row
+     */
+    private static final String CREATED_BY = "generator";
+
+    /**
+     * Contact_Name prefix of generated contacts, since contacts have no Created_By
+     */
+    private static final String CONTACT_PREFIX = "Generated Contact ";
+
+    private static final int BATCH_ROWS = 1000;
+    private static final int CLEAN_CHUNK_ROWS = 10_000;
+    private static final int COUNTRIES = 20;
+    private static final int DIVISIONS_PER_COUNTRY = 25;
+
+    private static final String[] FIRST_NAMES = {"Anika", "Daniel", "Li", "Maria", "James", "Priya", "Chen", "Omar",
+            "Sofia", "Noah", "Emma", "Lucas", "Aiko", "Mateo", "Zara", "Ivan"};
+    private static final String[] LAST_NAMES = {"Costa", "Garcia", "Lee", "Smith", "Patel", "Nguyen", "Kim",
+            "Okafor", "Rossi", "Muller", "Silva", "Khan", "Tanaka", "Cohen", "Novak", "Brown"};
+    private static final String[] STREETS = {"Main St", "Oak Ave", "Maple Dr", "Cedar Ln", "Elm St", "High St",
+            "Park Rd", "Lake Blvd"};
+    private static final String[] TYPES = {"Planning Session", "De-Briefing", "Check-in", "Follow-up", "Review",
+            "Onboarding"};
+    private static final int[] TYPE_WEIGHTS = {30, 20, 25, 15, 7, 3};
+    private static final String[] LOCATIONS = {"Phoenix, Arizona", "White Plains, New York", "Montreal, Canada",
+            "London, England", "Online"};
+    private static final int[] LENGTH_MINUTES = {15, 30, 45, 60, 90, 120};
+    private static final int[] LENGTH_WEIGHTS = {10, 40, 10, 25, 10, 5};
+
+    /**
+     * Appointments span this many days, starting two years ago
+     */
+    private static final int DAYS = 4 * 365;
+
+    private static final ZoneId EST = ZoneId.of("America/New_York");
+
+    private final Random random = new Random(195);
+    private final LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC).withNano(0);
+    private final LocalDate firstDay = LocalDate.now(EST).minusDays(2 * 365);
+
+    public static void main(String[] args) throws SQLException {
+        JDBC.openConnection();
+        try {
+            if (args.length > 0 && args[0].equals("clean")) {
+                clean();
+                return;
+            }
+            int customers = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+            long appointments = args.length > 1 ? Long.parseLong(args[1]) : 50_000_000L;
+            int contacts = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+            int users = args.length > 3 ? Integer.parseInt(args[3]) : 500;
+            new DataGenerator().generate(customers, appointments, contacts, users);
+        } finally {
+            JDBC.closeConnection();
+        }
+    }
+
+    /**
+     * Generates every table in foreign key order, printing how long each took
+     * @param customers customers to add
+     * @param appointments appointments to add
+     * @param contacts contacts to add
+     * @param users users to add
+     * @throws SQLException for SQL error
+     */
+    private void generate(int customers, long appointments, int contacts, int users) throws SQLException {
+        System.out.println("table,rows,millis,rows_per_second");
+        try (Connection conn = JDBC.getConnection()) {
+            conn.setAutoCommit(false);
+            timed("countries", COUNTRIES, () -> insert(conn, "countries", new String[]{"Country"}, COUNTRIES,
+                    (ps, col, i) -> ps.setString(col, "Generated Country " + i)));
+            int[] countryIDs = ids(conn, "SELECT Country_ID FROM countries WHERE Created_By = '" + CREATED_BY +
+                    "'");
+            int divisions = countryIDs.length * DIVISIONS_PER_COUNTRY;
+            timed("first_level_divisions", divisions, () -> insert(conn, "first_level_divisions",
+                    new String[]{"Division", "Country_ID"}, divisions, (ps, col, i) -> {
+                        ps.setString(col, "Generated Division " + i);
+                        ps.setInt(col + 1, countryIDs[(int) (i / DIVISIONS_PER_COUNTRY)]);
+                    }));
+            timed("contacts", contacts, () -> insert(conn, "contacts", new String[]{"Contact_Name", "Email"},
+                    contacts, (ps, col, i) -> {
+                        ps.setString(col, CONTACT_PREFIX + i);
+                        ps.setString(col + 1, "contact" + i + "@company.com");
+                    }));
+            timed("users", users, () -> insert(conn, "users", new String[]{"User_Name", "Password"}, users,
+                    (ps, col, i) -> {
+                        ps.setString(col, "generated" + i);
+                        ps.setString(col + 1, "generated" + i);
+                    }));
+            int[] divisionIDs = ids(conn, "SELECT Division_ID FROM first_level_divisions");
+            timed("customers", customers, () -> insert(conn, "customers",
+                    new String[]{"Customer_Name", "Address", "Postal_Code", "Phone", "Division_ID"}, customers,
+                    (ps, col, i) -> {
+                        ps.setString(col, pick(FIRST_NAMES) + " " + pick(LAST_NAMES));
+                        ps.setString(col + 1, (random.nextInt(9999) + 1) + " " + pick(STREETS));
+                        ps.setString(col + 2, String.format("%05d", random.nextInt(100_000)));
+                        ps.setString(col + 3, String.format("%03d-555-%04d", random.nextInt(900) + 100,
+                                random.nextInt(10_000)));
+                        ps.setInt(col + 4, divisionIDs[skewed(divisionIDs.length)]);
+                    }));
+            int[] customerIDs = ids(conn, "SELECT Customer_ID FROM customers");
+            int[] contactIDs = ids(conn, "SELECT Contact_ID FROM contacts");
+            int[] userIDs = ids(conn, "SELECT User_ID FROM users");
+            timed("appointments", appointments, () -> insert(conn, "appointments",
+                    new String[]{"Title", "Description", "Location", "Type", "Start", "End", "Customer_ID",
+                            "User_ID", "Contact_ID"}, appointments, (ps, col, i) -> {
+                        String type = weighted(TYPES, TYPE_WEIGHTS);
+                        LocalDateTime start = appointmentStart();
+                        ps.setString(col, type + " " + (i % 1000));
+                        ps.setString(col + 1, "Generated " + type.toLowerCase());
+                        ps.setString(col + 2, pick(LOCATIONS));
+                        ps.setString(col + 3, type);
+                        ps.setObject(col + 4, start);
+                        ps.setObject(col + 5, start.plusMinutes(LENGTH_MINUTES[weightedIndex(LENGTH_WEIGHTS)]));
+                        ps.setInt(col + 6, customerIDs[skewed(customerIDs.length)]);
+                        ps.setInt(col + 7, userIDs[random.nextInt(userIDs.length)]);
+                        ps.setInt(col + 8, contactIDs[skewed(contactIDs.length)]);
+                    }));
+        }
+    }
+
+    /**
+     * Inserts rows as multi-row statements, committing after each
+     * @param conn connection with auto-commit off
+     * @param table table to insert into
+     * @param columns columns set by the row writer, before the audit columns every table shares
+     * @param rows number of rows to insert
+     * @param writer sets one row's values
+     * @throws SQLException for SQL error
+     */
+    private void insert(Connection conn, String table, String[] columns, long rows, RowWriter writer)
+            throws SQLException {
+        boolean audited = !table.equals("contacts");
+        StringBuilder tuple = new StringBuilder("(");
+        StringBuilder names = new StringBuilder(String.join(", ", columns));
+        for (int i = 0; i < columns.length; i++) {
+            tuple.append(i == 0 ? "?" : ", ?");
+        }
+        if (audited) {
+            names.append(", Create_Date, Created_By, Last_Update, Last_Updated_By");
+            tuple.append(", ?, ?, ?, ?");
+        }
+        tuple.append(")");
+        int perRow = columns.length + (audited ? 4 : 0);
+        PreparedStatement full = null;
+        try {
+            for (long first = 0; first < rows; first += BATCH_ROWS) {
+                int batch = (int) Math.min(BATCH_ROWS, rows - first);
+                PreparedStatement ps;
+                if (batch == BATCH_ROWS && full != null) {
+                    ps = full;
+                } else {
+                    StringBuilder sql = new StringBuilder("INSERT INTO " + table + " (" + names + ") VALUES ");
+                    for (int i = 0; i < batch; i++) {
+                        sql.append(i == 0 ? "" : ", ").append(tuple);
+                    }
+                    ps = conn.prepareStatement(sql.toString());
+                    if (batch == BATCH_ROWS) {
+                        full = ps;
+                    }
+                }
+                for (int i = 0; i < batch; i++) {
+                    int col = i * perRow + 1;
+                    writer.write(ps, col, first + i);
+                    if (audited) {
+                        ps.setObject(col + columns.length, now);
+                        ps.setString(col + columns.length + 1, CREATED_BY);
+                        ps.setObject(col + columns.length + 2, now);
+                        ps.setString(col + columns.length + 3, CREATED_BY);
+                    }
+                }
+                ps.executeUpdate();
+                conn.commit();
+                if (ps != full) {
+                    ps.close();
+                }
+            }
+        } finally {
+            if (full != null) {
+                full.close();
+            }
+        }
+    }
+
+    /**
+     * Picks a weekday start time within business hours over the generated span, on a quarter hour
+     * @return start time in UTC
+     */
+    private LocalDateTime appointmentStart() {
+        LocalDate day;
+        do {
+            day = firstDay.plusDays(random.nextInt(DAYS));
+        } while ((day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY) &&
+                random.nextInt(10) != 0);
+        int quarter = random.nextInt(12 * 4); // 8am to 8pm so even two hour appointments end by 10pm
+        ZonedDateTime start = day.atTime(8 + quarter / 4, quarter % 4 * 15).atZone(EST);
+        return start.withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+    }
+
+    /**
+     * Picks an index where low indexes are far more likely, so a few rows get most of the traffic
+     * @param size number of choices
+     * @return index from 0 to size - 1
+     */
+    private int skewed(int size) {
+        double u = random.nextDouble();
+        return (int) Math.min(size - 1, Math.floor(size * u * u * u));
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private String weighted(String[] values, int[] weights) {
+        return values[weightedIndex(weights)];
+    }
+
+    private int weightedIndex(int[] weights) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        int roll = random.nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            roll -= weights[i];
+            if (roll < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    /**
+     * Reads a column of ids
+     * @param conn connection to query on
+     * @param sql query selecting one integer column
+     * @return the ids
+     * @throws SQLException for SQL error
+     */
+    private static int[] ids(Connection conn, String sql) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (Statement stmt = conn.createStatement()) {
+            ResultSet rs = stmt.executeQuery(sql);
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        }
+        int[] array = new int[ids.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = ids.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * Runs one table's generation and prints its row rate
+     * @param table table name
+     * @param rows rows generated
+     * @param work the generation
+     * @throws SQLException for SQL error
+     */
+    private static void timed(String table, long rows, SqlWork work) throws SQLException {
+        long start = System.nanoTime();
+        work.run();
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        System.out.println(table + "," + rows + "," + millis + "," + rows * 1000 / millis);
+    }
+
+    /**
+     * Deletes every generated row in reverse foreign key order, in chunks so no single transaction gets huge
+     * @throws SQLException for SQL error
+     */
+    private static void clean() throws SQLException {
+        String[] deletes = {
+                "DELETE FROM appointments WHERE Created_By = '" + CREATED_BY + "' OR Contact_ID IN (SELECT " +
+                        "Contact_ID FROM contacts WHERE Contact_Name LIKE '" + CONTACT_PREFIX + "%') OR Customer_ID " +
+                        "IN (SELECT Customer_ID FROM customers WHERE Created_By = '" + CREATED_BY + "')",
+                "DELETE FROM customers WHERE Created_By = '" + CREATED_BY + "'",
+                "DELETE FROM users WHERE Created_By = '" + CREATED_BY + "'",
+                "DELETE FROM contacts WHERE Contact_Name LIKE '" + CONTACT_PREFIX + "%'",
+                "DELETE FROM first_level_divisions WHERE Created_By = '" + CREATED_BY + "'",
+                "DELETE FROM countries WHERE Created_By = '" + CREATED_BY + "'"};
+        try (Connection conn = JDBC.getConnection();
+             Statement stmt = conn.createStatement()) {
+            for (String delete : deletes) {
+                long deleted = 0;
+                int chunk;
+                do {
+                    chunk = stmt.executeUpdate(delete + " LIMIT " + CLEAN_CHUNK_ROWS);
+                    deleted += chunk;
+                } while (chunk == CLEAN_CHUNK_ROWS);
+                System.out.println(delete.substring(0, delete.indexOf(" WHERE")) + ": " + deleted + " rows");
+            }
+        }
+    }
+
+    /**
+     * Sets the values of one row in a multi-row insert
+     */
+    private interface RowWriter {
+        /**
+         * @param ps statement being filled
+         * @param col parameter index of the row's first column
+         * @param row row number within the table
+         * @throws SQLException if a value can't be set
+         */
+        void write(PreparedStatement ps, int col, long row) throws SQLException;
+    }
+
+    /**
+     * Database work that can throw SQLException
+     */
+    private interface SqlWork {
+        void run() throws SQLException;
+    }
+}
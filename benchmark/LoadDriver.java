@@ -0,0 +1,323 @@
+package benchmark;
+
+import helper.JDBC;
+import helper.QueryMetrics;
+import helper.SchemaMigrator;
+import helper.StartupReport;
+import scheduling.Main;
+import scheduling.Model.Appointment;
+import scheduling.Model.AppointmentOverlapException;
+import scheduling.Model.Contact;
+import scheduling.Model.CountryReport;
+import scheduling.Model.Customer;
+import scheduling.Model.DBModel;
+import scheduling.Model.Logger;
+import scheduling.Model.ReferenceDataCache;
+import scheduling.Model.UpdateConflictException;
+import scheduling.Model.User;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Drives DBModel from many threads at once with a mix of what users do, to see how it holds up with a large
+ * database such as one filled by DataGenerator.  Each thread loops without pausing, picking a scenario by weight:
+ * logging in, browsing a week of appointments or the customer list, booking and rescheduling appointments, and
+ * running each report.  Calls made during the warmup are not counted.  Prints throughput and latency percentiles
+ * for each scenario as CSV, after migrating the schema and printing the startup report with each hot query's plan.
+ * Appointments the driver booked are deleted at the end.
+ * Usage: LoadDriver [threads] [seconds] [warmup seconds] [username] [password] (defaults to 8 60 10 test test)
+ * @author Jason Philpy
+ */
+public class LoadDriver {
+
+    private static final String[] SCENARIOS = {"login", "browse_week", "browse_customers", "book", "reschedule",
+            "report_totals", "report_contact", "report_countries"};
+    private static final int[] WEIGHTS = {5, 35, 3, 15, 10, 15, 12, 5};
+
+    private static final String BOOKED_TITLE = "load-driver";
+    private static final String[] MONTHS = {"January", "February", "March", "April", "May", "June", "July",
+            "August", "September", "October", "November", "December"};
+    private static final String[] TYPES = {"Planning Session", "De-Briefing", "Check-in", "Follow-up"};
+    private static final ZoneId EST = ZoneId.of("America/New_York");
+    private static final long WEEK = 7 * 24 * 60 * 60 * 1000;
+
+    private final String username;
+    private final String password;
+    private final List<Contact> contacts;
+    private final int[] customerIDs;
+    private final int[] userIDs;
+
+    private LoadDriver(String username, String password, List<Contact> contacts, int[] customerIDs,
+                       int[] userIDs) {
+        this.username = username;
+        this.password = password;
+        this.contacts = contacts;
+        this.customerIDs = customerIDs;
+        this.userIDs = userIDs;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+        int warmupSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        String username = args.length > 3 ? args[3] : "test";
+        String password = args.length > 4 ? args[4] : "test";
+        JDBC.openConnection();
+        try {
+            SchemaMigrator.migrateSyncTables();
+            SchemaMigrator.migrate();
+            DBModel.verifyQueryPlans();
+            System.out.println(StartupReport.getReport());
+            Main.setUser(DBModel.login(username, password));
+            long setupStart = System.nanoTime();
+            List<Customer> customers = DBModel.getAllCustomers();
+            int[] customerIDs = new int[customers.size()];
+            for (int i = 0; i < customerIDs.length; i++) {
+                customerIDs[i] = customers.get(i).getId();
+            }
+            customers = null;
+            List<User> users = ReferenceDataCache.getAllUsers();
+            int[] userIDs = new int[users.size()];
+            for (int i = 0; i < userIDs.length; i++) {
+                userIDs[i] = users.get(i).getId();
+            }
+            DBModel.preloadAppointments();
+            System.out.println("Setup loaded " + customerIDs.length + " customers and the appointment store in " +
+                    (System.nanoTime() - setupStart) / 1_000_000 + " ms");
+            new LoadDriver(username, password, ReferenceDataCache.getAllContacts(), customerIDs, userIDs)
+                    .run(threads, seconds, warmupSeconds);
+        } finally {
+            Logger.shutdown();
+            JDBC.closeConnection();
+        }
+    }
+
+    /**
+     * Runs the threads, prints the results and deletes the booked appointments
+     * @param threads threads calling at once
+     * @param seconds length of the measured run
+     * @param warmupSeconds length of the warmup before it
+     * @throws InterruptedException if interrupted while waiting for threads
+     */
+    private void run(int threads, int seconds, int warmupSeconds) throws InterruptedException {
+        long measureFrom = System.nanoTime() + warmupSeconds * 1_000_000_000L;
+        long stopAt = measureFrom + seconds * 1_000_000_000L;
+        Worker[] workers = new Worker[threads];
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            Worker worker = new Worker(i, measureFrom, stopAt);
+            workers[i] = worker;
+            Thread thread = new Thread(() -> {
+                try {
+                    worker.run();
+                } finally {
+                    done.countDown();
+                }
+            }, "load-driver-" + i);
+            thread.start();
+        }
+        done.await();
+
+        System.out.println("scenario,calls,errors,conflicts,calls_per_second,p50_ms,p90_ms,p99_ms,p999_ms,max_ms");
+        for (int s = 0; s < SCENARIOS.length; s++) {
+            LatencyRecorder merged = new LatencyRecorder();
+            int errors = 0;
+            int conflicts = 0;
+            for (Worker worker : workers) {
+                merged.addAll(worker.latencies[s]);
+                errors += worker.errors[s];
+                conflicts += worker.conflicts[s];
+            }
+            long[] sorted = merged.sorted();
+            System.out.println(SCENARIOS[s] + "," + sorted.length + "," + errors + "," + conflicts + "," +
+                    String.format("%.1f", sorted.length / (double) seconds) + "," + percentile(sorted, 0.50) + "," +
+                    percentile(sorted, 0.90) + "," + percentile(sorted, 0.99) + "," + percentile(sorted, 0.999) +
+                    "," + percentile(sorted, 1.0));
+        }
+
+        int deleted = 0;
+        for (Worker worker : workers) {
+            for (Appointment appt : worker.booked) {
+                try {
+                    DBModel.deleteAppointment(appt);
+                    deleted++;
+                } catch (Exception e) {
+                    System.out.println("Could not delete booked appointment " + appt.getId() + ": " +
+                            e.getMessage());
+                }
+            }
+        }
+        System.out.println("Deleted " + deleted + " booked appointments");
+        System.out.println(QueryMetrics.getReport());
+        System.out.println(ReferenceDataCache.getReport());
+    }
+
+    /**
+     * @param sorted latencies in nanoseconds, sorted
+     * @param fraction percentile as a fraction
+     * @return the latency at the percentile in milliseconds
+     */
+    private static String percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return "";
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(fraction * sorted.length) - 1);
+        return String.format("%.2f", sorted[Math.max(0, index)] / 1_000_000.0);
+    }
+
+    /**
+     * One simulated user
+     */
+    private class Worker {
+        private final Random random;
+        private final long measureFrom;
+        private final long stopAt;
+        private final LatencyRecorder[] latencies = new LatencyRecorder[SCENARIOS.length];
+        private final int[] errors = new int[SCENARIOS.length];
+        private final int[] conflicts = new int[SCENARIOS.length];
+        private final List<Appointment> booked = new ArrayList<>();
+
+        private Worker(int id, long measureFrom, long stopAt) {
+            this.random = new Random(id);
+            this.measureFrom = measureFrom;
+            this.stopAt = stopAt;
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = new LatencyRecorder();
+            }
+        }
+
+        private void run() {
+            long now;
+            while ((now = System.nanoTime()) < stopAt) {
+                int scenario = pickScenario();
+                long start = now;
+                try {
+                    call(scenario);
+                } catch (UpdateConflictException | AppointmentOverlapException e) {
+                    conflicts[scenario]++;
+                } catch (Exception e) {
+                    errors[scenario]++;
+                }
+                long end = System.nanoTime();
+                if (start >= measureFrom && end < stopAt) {
+                    latencies[scenario].add(end - start);
+                }
+            }
+        }
+
+        /**
+         * Makes the DBModel calls for one scenario
+         * @param scenario index into SCENARIOS
+         * @throws Exception if a call fails
+         */
+        private void call(int scenario) throws Exception {
+            switch (SCENARIOS[scenario]) {
+                case "login":
+                    DBModel.login(username, password);
+                    break;
+                case "browse_week":
+                    long weekStart = System.currentTimeMillis() + (random.nextInt(104) - 52) * WEEK;
+                    DBModel.getAppointmentsInRange(new Date(weekStart), new Date(weekStart + WEEK));
+                    break;
+                case "browse_customers":
+                    DBModel.getAllCustomers();
+                    break;
+                case "book":
+                    booked.add(DBModel.addAppointment(newAppointment()));
+                    break;
+                case "reschedule":
+                    if (booked.isEmpty()) {
+                        booked.add(DBModel.addAppointment(newAppointment()));
+                    } else {
+                        int index = random.nextInt(booked.size());
+                        Appointment appt = booked.get(index);
+                        booked.set(index, DBModel.updateAppointment(new Appointment(appt.getId(),
+                                appt.getTitle(), appt.getDescription(), appt.getLocation(), appt.getType(),
+                                appt.getStartMillis() + 15 * 60 * 1000, appt.getEndMillis() + 15 * 60 * 1000,
+                                appt.getCustomerID(), appt.getContact(), appt.getUserID(),
+                                appt.getLastUpdateMillis())));
+                    }
+                    break;
+                case "report_totals":
+                    DBModel.getCountOfAppointments(MONTHS[random.nextInt(12)],
+                            LocalDate.now().getYear() - random.nextInt(3), TYPES[random.nextInt(TYPES.length)]);
+                    break;
+                case "report_contact":
+                    DBModel.getAppointmentsForContact(contacts.get(random.nextInt(contacts.size())));
+                    break;
+                case "report_countries":
+                    List<CountryReport> reports = DBModel.getCountryReports();
+                    if (reports.isEmpty()) {
+                        throw new Exception("No country reports");
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException(SCENARIOS[scenario]);
+            }
+        }
+
+        /**
+         * @return an appointment on a weekday within business hours in the next year
+         */
+        private Appointment newAppointment() {
+            LocalDate day = LocalDate.now(EST).plusDays(random.nextInt(365) + 1);
+            while (day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                day = day.plusDays(1);
+            }
+            int quarter = random.nextInt(12 * 4);
+            long start = day.atTime(8 + quarter / 4, quarter % 4 * 15).atZone(EST).toInstant().toEpochMilli();
+            return new Appointment(0, BOOKED_TITLE, "Booked by the load driver", "Online", TYPES[random.nextInt(
+                    TYPES.length)], start, start + 30 * 60 * 1000, customerIDs[random.nextInt(customerIDs.length)],
+                    contacts.get(random.nextInt(contacts.size())), userIDs[random.nextInt(userIDs.length)]);
+        }
+
+        private int pickScenario() {
+            int total = 0;
+            for (int weight : WEIGHTS) {
+                total += weight;
+            }
+            int roll = random.nextInt(total);
+            for (int i = 0; i < WEIGHTS.length; i++) {
+                roll -= WEIGHTS[i];
+                if (roll < 0) {
+                    return i;
+                }
+            }
+            return WEIGHTS.length - 1;
+        }
+    }
+
+    /**
+     * Growable array of latencies in nanoseconds, written by one thread
+     */
+    private static class LatencyRecorder {
+        private long[] values = new long[1024];
+        private int size = 0;
+
+        private void add(long nanos) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+        }
+
+        private void addAll(LatencyRecorder other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.values[i]);
+            }
+        }
+
+        private long[] sorted() {
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package benchmark;
+
+import scheduling.Model.TimeFormatter;
+import java.text.SimpleDateFormat;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Compares TimeFormatter against the shared SimpleDateFormat it replaced, formatting the way the appointment table
+ * and database writes do, on one thread and on several at once.  Each case is warmed up before it is timed, and
+ * every result is folded into a checksum that is printed with the timing so none of the work can be dropped.
+ * Usage: TimeFormatterBenchmark [operations per thread] (defaults to 1000000)
+ * @author Jason Philpy
+ */
+public class TimeFormatterBenchmark {
+
+    private static final int WARMUP_ROUNDS = 3;
+
+    public static void main(String[] args) throws InterruptedException {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long base = System.currentTimeMillis();
+        System.out.println("implementation,operation,threads,ns_per_op,checksum");
+        for (int threadCount : threads > 1 ? new int[]{1, threads} : new int[]{1}) {
+            run("legacy", "display", threadCount, operations,
+                    i -> LegacyTimeFormatter.getTimeStringForDisplay(new Date(base + i * 60_000)).hashCode());
+            run("java.time", "display", threadCount, operations,
+                    i -> TimeFormatter.getTimeStringForDisplay(base + i * 60_000).hashCode());
+            run("legacy", "utc", threadCount, operations,
+                    i -> LegacyTimeFormatter.getTimeStringUTC(new Date(base + i * 60_000)).hashCode());
+            run("java.time", "utc", threadCount, operations,
+                    i -> TimeFormatter.getTimeStringUTC(new Date(base + i * 60_000)).hashCode());
+            run("legacy", "parse_est", threadCount, operations,
+                    i -> LegacyTimeFormatter.getESTDateFromString("06/" + (i % 28 + 1) + "/21 8:00 AM").getTime());
+            run("java.time", "parse_est", threadCount, operations,
+                    i -> TimeFormatter.getESTDateFromString("06/" + (i % 28 + 1) + "/21 8:00 AM").getTime());
+        }
+    }
+
+    /**
+     * Warms up then times one operation across a number of threads, printing the average time per call and the
+     * checksum of every timed result
+     * @param implementation name of the implementation
+     * @param operation name of the operation
+     * @param threadCount threads calling at once
+     * @param operations calls per thread
+     * @param op the call, given the iteration number, returning a hash of its result
+     * @throws InterruptedException if interrupted while waiting for threads
+     */
+    private static void run(String implementation, String operation, int threadCount, int operations,
+                            LongUnaryOperator op) throws InterruptedException {
+        LongAdder checksum = new LongAdder();
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            time(threadCount, operations / 10, op, checksum);
+        }
+        checksum.reset();
+        long nanos = time(threadCount, operations, op, checksum);
+        long perOp = nanos / ((long) operations * threadCount);
+        System.out.println(implementation + "," + operation + "," + threadCount + "," + perOp + "," + checksum.sum());
+    }
+
+    /**
+     * Runs an operation on several threads started together, adding each thread's combined result hashes to the
+     * checksum
+     * @param threadCount threads calling at once
+     * @param operations calls per thread
+     * @param op the call, given the iteration number, returning a hash of its result
+     * @param checksum total the result hashes are added to
+     * @return elapsed nanoseconds until every thread finished
+     * @throws InterruptedException if interrupted while waiting for threads
+     */
+    private static long time(int threadCount, int operations, LongUnaryOperator op, LongAdder checksum)
+            throws InterruptedException {
+        CountDownLatch ready = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threadCount);
+        for (int t = 0; t < threadCount; t++) {
+            Thread thread = new Thread(() -> {
+                long total = 0;
+                try {
+                    ready.await();
+                    for (int i = 0; i < operations; i++) {
+                        total = total * 31 + op.applyAsLong(i);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                checksum.add(total);
+                done.countDown();
+            });
+            thread.start();
+        }
+        long start = System.nanoTime();
+        ready.countDown();
+        done.await();
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * The previous TimeFormatter, one SimpleDateFormat reconfigured on every call
+     */
+    private static class LegacyTimeFormatter {
+
+        private static final SimpleDateFormat formatter = new SimpleDateFormat();
+
+        private static synchronized String getTimeStringUTC(Date date) {
+            formatter.applyPattern("yyyy-MM-dd HH:mm:ss");
+            formatter.setTimeZone(TimeZone.getTimeZone("UTC"));
+            return formatter.format(date);
+        }
+
+        private static synchronized String getTimeStringForDisplay(Date date) {
+            formatter.applyPattern("MM/dd/yy h:mm a");
+            formatter.setTimeZone(TimeZone.getDefault());
+            return formatter.format(date);
+        }
+
+        private static synchronized Date getESTDateFromString(String dateString) {
+            formatter.applyPattern("MM/dd/yy h:mm a");
+            formatter.setTimeZone(TimeZone.getTimeZone(ZoneId.of("America/New_York")));
+            try {
+                return formatter.parse(dateString);
+            } catch (java.text.ParseException e) {
+                return new Date();
+            }
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package helper;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of database connections.  Connections are borrowed with {@link #borrow()} and handed back by
+ * calling close() on the borrowed connection, so callers can use try-with-resources.
+ * @author Jason Philpy
+ */
+public class ConnectionPool {
+
+    /**
+     * Connections idle for less than this are handed out without a validation round trip
+     */
+    private static final long VALIDATION_BYPASS_MILLIS = 500;
+
+    private final String jdbcUrl;
+    private final String userName;
+    private final String password;
+    private final int maxSize;
+    private final int minIdle;
+    private final long idleTimeoutMillis;
+    private final long borrowTimeoutMillis;
+    private final int validationTimeoutSeconds;
+
+    /**
+     * One permit per connection that may be on loan, which bounds the pool at maxSize physical connections
+     */
+    private final Semaphore permits;
+
+    /**
+     * Idle connections, most recently returned first so the oldest ones drift to the tail and get evicted
+     */
+    private final LinkedBlockingDeque<IdleConnection> idle = new LinkedBlockingDeque<>();
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong discardedCount = new AtomicLong();
+    private final AtomicLong statementCount = new AtomicLong();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed = false;
+
+    /**
+     * Creates the pool and starts the idle eviction task
+     * @param jdbcUrl database url
+     * @param userName database user
+     * @param password database password
+     * @param maxSize most connections open at once
+     * @param minIdle connections kept open even when idle
+     * @param idleTimeoutMillis time an idle connection above minIdle is kept before being closed
+     * @param borrowTimeoutMillis time to wait for a free connection before giving up
+     * @param validationTimeoutSeconds time allowed for a connection health check
+     */
+    public ConnectionPool(String jdbcUrl, String userName, String password, int maxSize, int minIdle,
+                          long idleTimeoutMillis, long borrowTimeoutMillis, int validationTimeoutSeconds) {
+        this.jdbcUrl = jdbcUrl;
+        this.userName = userName;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.minIdle = Math.min(minIdle, maxSize);
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.permits = new Semaphore(maxSize, true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, idleTimeoutMillis / 4);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, waiting up to the borrow timeout for one to free up.  Broken idle connections are
+     * discarded and replaced with a fresh one, so the pool reconnects on its own after the database comes back.
+     * @return a connection that returns itself to the pool when closed
+     * @throws SQLException if no connection could be obtained
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed.");
+        }
+        long waitStart = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException("Timed out after " + borrowTimeoutMillis +
+                        "ms waiting for a database connection.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection.", e);
+        }
+        recordWait(System.nanoTime() - waitStart);
+        try {
+            Connection physical = takeHealthyIdle();
+            if (physical == null) {
+                physical = create();
+            }
+            active.incrementAndGet();
+            borrowCount.incrementAndGet();
+            return wrap(physical);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens connections until minIdle are available
+     * @throws SQLException if the database can't be reached
+     */
+    public void warmUp() throws SQLException {
+        while (!closed && idle.size() + active.get() < minIdle) {
+            idle.offerFirst(new IdleConnection(create()));
+        }
+    }
+
+    /**
+     * Closes every idle connection and stops housekeeping.  Connections on loan are closed as they are returned.
+     */
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        IdleConnection idleConnection;
+        while ((idleConnection = idle.pollFirst()) != null) {
+            discard(idleConnection.connection);
+        }
+    }
+
+    /**
+     * @return connections currently on loan
+     */
+    public int getActiveConnections() {
+        return active.get();
+    }
+
+    /**
+     * @return open connections waiting in the pool
+     */
+    public int getIdleConnections() {
+        return idle.size();
+    }
+
+    /**
+     * @return most connections the pool will open
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return number of threads blocked waiting for a connection
+     */
+    public int getThreadsAwaitingConnection() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * @return total number of successful borrows
+     */
+    public long getBorrowCount() {
+        return borrowCount.get();
+    }
+
+    /**
+     * @return average time spent waiting for a connection in milliseconds
+     */
+    public double getAverageWaitMillis() {
+        long borrows = borrowCount.get();
+        return borrows == 0 ? 0 : totalWaitNanos.get() / (borrows * 1_000_000.0);
+    }
+
+    /**
+     * @return longest time spent waiting for a connection in milliseconds
+     */
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * @return number of physical connections opened over the life of the pool
+     */
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    /**
+     * @return number of physical connections closed because they were broken, idle too long, or the pool closed
+     */
+    public long getDiscardedCount() {
+        return discardedCount.get();
+    }
+
+    /**
+     * @return number of statements created on pooled connections, which is one per query or update
+     */
+    public long getStatementCount() {
+        return statementCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("active=%d, idle=%d, waiting=%d, borrows=%d, avgWait=%.2fms, maxWait=%.2fms, " +
+                        "created=%d, discarded=%d, statements=%d", getActiveConnections(), getIdleConnections(),
+                getThreadsAwaitingConnection(), getBorrowCount(), getAverageWaitMillis(), getMaxWaitMillis(),
+                getCreatedCount(), getDiscardedCount(), getStatementCount());
+    }
+
+    /**
+     * Pulls idle connections until a healthy one is found
+     * @return a healthy connection, or null if none are idle
+     */
+    private Connection takeHealthyIdle() {
+        IdleConnection idleConnection;
+        while ((idleConnection = idle.pollFirst()) != null) {
+            if (System.currentTimeMillis() - idleConnection.idleSince < VALIDATION_BYPASS_MILLIS ||
+                    isHealthy(idleConnection.connection)) {
+                return idleConnection.connection;
+            }
+            discard(idleConnection.connection);
+        }
+        return null;
+    }
+
+    /**
+     * Checks that a connection is still usable
+     * @param connection connection to check
+     * @return true if the database answered in time
+     */
+    private boolean isHealthy(Connection connection) {
+        try {
+            return connection.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Opens a new physical connection
+     * @return the new connection
+     * @throws SQLException if the database can't be reached
+     */
+    private Connection create() throws SQLException {
+        Connection connection = DriverManager.getConnection(jdbcUrl, userName, password);
+        createdCount.incrementAndGet();
+        return connection;
+    }
+
+    /**
+     * Takes back a connection from a borrower
+     * @param connection physical connection being returned
+     * @param broken true if the borrower saw a connection-level error
+     */
+    private void giveBack(Connection connection, boolean broken) {
+        active.decrementAndGet();
+        try {
+            if (closed || broken || connection.isClosed()) {
+                discard(connection);
+                return;
+            }
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            idle.offerFirst(new IdleConnection(connection));
+        } catch (SQLException e) {
+            discard(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Closes a physical connection, ignoring errors
+     * @param connection connection to close
+     */
+    private void discard(Connection connection) {
+        discardedCount.incrementAndGet();
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.out.println("Error closing pooled connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Closes connections that have been idle too long, then tops the pool back up to minIdle
+     */
+    private void housekeep() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        for (IdleConnection idleConnection : idle) {
+            if (idle.size() + active.get() <= minIdle) {
+                break;
+            }
+            if (idleConnection.idleSince < cutoff && idle.remove(idleConnection)) {
+                discard(idleConnection.connection);
+            }
+        }
+        try {
+            warmUp();
+        } catch (SQLException e) {
+            System.out.println("Connection pool could not reconnect: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Keeps track of total and maximum wait times
+     * @param waitNanos time spent waiting for a permit
+     */
+    private void recordWait(long waitNanos) {
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    /**
+     * Wraps a physical connection so close() returns it to the pool
+     * @param physical connection to wrap
+     * @return the wrapped connection
+     */
+    private Connection wrap(Connection physical) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new PooledConnectionHandler(physical));
+    }
+
+    /**
+     * A connection sitting in the pool along with when it was returned
+     */
+    private static class IdleConnection {
+        private final Connection connection;
+        private final long idleSince = System.currentTimeMillis();
+
+        private IdleConnection(Connection connection) {
+            this.connection = connection;
+        }
+    }
+
+    /**
+     * Passes calls through to the physical connection, except close() which returns it to the pool.  Any
+     * connection-level SQL error (SQLState class 08) marks the connection as broken so it is not reused.
+     */
+    private class PooledConnectionHandler implements InvocationHandler {
+        private final Connection physical;
+        private boolean returned = false;
+        private boolean broken = false;
+        private boolean usedForStatements = false;
+
+        private PooledConnectionHandler(Connection physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            boolean createsStatement = false;
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        if (usedForStatements && !broken) {
+                            StartupReport.markFirstQuery();
+                        }
+                        giveBack(physical, broken);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + physical;
+                case "createStatement":
+                case "prepareStatement":
+                case "prepareCall":
+                    createsStatement = true;
+                    break;
+                default:
+                    break;
+            }
+            if (returned) {
+                throw new SQLException("Connection has already been returned to the pool.");
+            }
+            if (createsStatement) {
+                statementCount.incrementAndGet();
+                QueryMetrics.countStatement();
+                usedForStatements = true;
+            }
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException) {
+                    String state = ((SQLException) cause).getSQLState();
+                    if (state != null && state.startsWith("08")) {
+                        broken = true;
+                    }
+                }
+                throw cause;
+            }
+        }
+    }
+}
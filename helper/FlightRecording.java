@@ -0,0 +1,72 @@
+package helper;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Captures a flight recording from inside the app, so a profile can be taken on a user's machine without adding
+ * agents or command line flags.  Uses the JDK's "profile" settings, which include the scheduling events.  Only
+ * one recording runs at a time.
+ * @author Jason Philpy
+ */
+public class FlightRecording {
+
+    /**
+     * Length of a recording started from the app
+     */
+    public static final int DEFAULT_SECONDS = 60;
+
+    private static final ScheduledExecutorService stopper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "flight-recording");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static CompletableFuture<File> running;
+
+    /**
+     * Starts recording, or joins the recording already running
+     * @param seconds how long to record
+     * @return a future completed with the recording file once it has been written, or completed exceptionally if
+     * the recording couldn't be made
+     */
+    public static synchronized CompletableFuture<File> record(int seconds) {
+        if (running != null && !running.isDone()) {
+            return running;
+        }
+        CompletableFuture<File> result = new CompletableFuture<>();
+        running = result;
+        File file = new File("recording-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".jfr");
+        try {
+            Recording recording = new Recording(Configuration.getConfiguration("profile"));
+            recording.setName("scheduling " + file.getName());
+            recording.setToDisk(true);
+            recording.start();
+            System.out.println("Flight recording started for " + seconds + "s");
+            stopper.schedule(() -> {
+                try {
+                    recording.stop();
+                    recording.dump(file.toPath());
+                    System.out.println("Flight recording saved to " + file.getAbsolutePath());
+                    result.complete(file);
+                } catch (Exception e) {
+                    System.out.println("Could not save flight recording: " + e.getMessage());
+                    result.completeExceptionally(e);
+                } finally {
+                    recording.close();
+                }
+            }, seconds, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            System.out.println("Could not start flight recording: " + e.getMessage());
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+}
@@ -1,34 +1,108 @@
 package helper;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
 
 public abstract class JDBC {
     private static final String protocol = "jdbc";
     private static final String vendor = ":mysql:";
     private static final String location = "//localhost/";
     private static final String databaseName = "client_schedule";
-    private static final String jdbcUrl = protocol + vendor + location + databaseName + "?connectionTimeZone = UTC"; // LOCAL
+    private static final String jdbcUrl = protocol + vendor + location + databaseName + "?connectionTimeZone=UTC&forceConnectionTimeZoneToSession=true&connectTimeout=5000"; // LOCAL, session in UTC so TIMESTAMP columns read back as UTC, fail after 5s if MySQL doesn't answer
     private static final String driver = "com.mysql.cj.jdbc.Driver"; // Driver reference
     private static final String userName = "sqlUser"; // Username
     private static String password = "Passw0rd!"; // Password
-    public static Connection connection;  // Connection Interface
+    private static final int maxPoolSize = 8; // Most connections open at once
+    private static final int minIdle = 1; // Connections kept open while idle
+    private static final long idleTimeoutMillis = 5 * 60 * 1000; // Idle connections above minIdle are closed after this
+    private static final long borrowTimeoutMillis = 10 * 1000; // Wait for a free connection before failing
+    private static final int validationTimeoutSeconds = 2; // Health check timeout
+    private static ConnectionPool pool; // Connection pool
+    private static final CompletableFuture<Void> connected = new CompletableFuture<>(); // Completed once the pool has connected
 
+    /**
+     * Loads the driver, creates the connection pool and opens its first connection
+     */
     public static void openConnection() {
         try {
             Class.forName(driver); // Locate Driver
-            connection = DriverManager.getConnection(jdbcUrl, userName, password); // Reference Connection object
+            pool = new ConnectionPool(jdbcUrl, userName, password, maxPoolSize, minIdle, idleTimeoutMillis,
+                    borrowTimeoutMillis, validationTimeoutSeconds);
+            pool.warmUp();
+            StartupReport.mark(StartupReport.DB_CONNECTED);
             System.out.println("Connection successful!");
+            connected.complete(null);
         }
         catch(Exception e)
         {
             System.out.println("Error:" + e.getMessage());
+            connected.completeExceptionally(e);
         }
     }
 
+    /**
+     * Creates the connection pool right away, then opens its first connection on a background thread so the
+     * caller doesn't wait on the database.  Connections borrowed before then are opened on demand.
+     * @return a future completed when the first connection is open, or completed exceptionally if it can't be
+     */
+    public static CompletableFuture<Void> openConnectionInBackground() {
+        try {
+            Class.forName(driver); // Locate Driver
+            pool = new ConnectionPool(jdbcUrl, userName, password, maxPoolSize, minIdle, idleTimeoutMillis,
+                    borrowTimeoutMillis, validationTimeoutSeconds);
+        } catch (Exception e) {
+            System.out.println("Error:" + e.getMessage());
+            connected.completeExceptionally(e);
+            return connected;
+        }
+        Thread connector = new Thread(() -> {
+            try {
+                pool.warmUp();
+                StartupReport.mark(StartupReport.DB_CONNECTED);
+                System.out.println("Connection successful!");
+                connected.complete(null);
+            } catch (Exception e) {
+                System.out.println("Error:" + e.getMessage());
+                connected.completeExceptionally(e);
+            }
+        }, "db-connect");
+        connector.setDaemon(true);
+        connector.start();
+        return connected;
+    }
+
+    /**
+     * @return a future completed when the first connection has been opened
+     */
+    public static CompletableFuture<Void> whenConnected() {
+        return connected;
+    }
+
+    /**
+     * Borrows a connection from the pool.  Closing the connection returns it to the pool.
+     * @return a pooled connection
+     * @throws SQLException if the pool hasn't been opened or no connection is available
+     */
+    public static Connection getConnection() throws SQLException {
+        if (pool == null) {
+            throw new SQLException("Database connection has not been opened.");
+        }
+        return pool.borrow();
+    }
+
+    /**
+     * Access to the pool for metrics
+     * @return the connection pool, or null if not opened
+     */
+    public static ConnectionPool getPool() {
+        return pool;
+    }
+
     public static void closeConnection() {
         try {
-            connection.close();
+            System.out.println("Connection pool: " + pool);
+            pool.close();
             System.out.println("Connection closed!");
         }
         catch(Exception e)
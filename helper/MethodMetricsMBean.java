@@ -0,0 +1,63 @@
+package helper;
+
+/**
+ * Query metrics for one DBModel method, as seen through JMX
+ * @author Jason Philpy
+ */
+public interface MethodMetricsMBean {
+
+    /**
+     * @return number of calls
+     */
+    long getCalls();
+
+    /**
+     * @return number of calls that failed
+     */
+    long getErrors();
+
+    /**
+     * @return median call time in milliseconds
+     */
+    double getP50Millis();
+
+    /**
+     * @return 99th percentile call time in milliseconds
+     */
+    double getP99Millis();
+
+    /**
+     * @return longest call time in milliseconds
+     */
+    double getMaxMillis();
+
+    /**
+     * @return average call time in milliseconds
+     */
+    double getMeanMillis();
+
+    /**
+     * @return rows returned or changed over all calls
+     */
+    long getRows();
+
+    /**
+     * @return average rows returned or changed per call
+     */
+    double getRowsPerCall();
+
+    /**
+     * @return statements run over all calls
+     */
+    long getStatements();
+
+    /**
+     * @return average statements run per call, which is well above 1 for N+1 query patterns
+     */
+    double getStatementsPerCall();
+
+    /**
+     * Clears every count
+     */
+    void reset();
+}
@@ -0,0 +1,32 @@
+package helper;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event covering one DBModel call
+ * @author Jason Philpy
+ */
+@Name("scheduling.Query")
+@Label("Database Query")
+@Category({"Scheduling", "Database"})
+@Description("A DBModel call and the statements it ran")
+class QueryEvent extends Event {
+
+    @Label("SQL ID")
+    @Description("DBModel method, which identifies the SQL it runs")
+    String sqlId;
+
+    @Label("Rows")
+    @Description("Rows returned or changed")
+    int rows;
+
+    @Label("Statements")
+    long statements;
+
+    @Label("Failed")
+    boolean failed;
+}
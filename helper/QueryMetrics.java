@@ -0,0 +1,239 @@
+package helper;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.text.SimpleDateFormat;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Times every DBModel call into a latency histogram per method, along with the rows it returned or changed and
+ * the statements it ran.  Each method is registered as an MBean named scheduling:type=QueryMetrics,name=method
+ * the first time it is called.  While dumps are running, the calls made since the last dump are appended to
+ * query_metrics.csv every few minutes, and the totals are printed at shutdown.
+ * @author Jason Philpy
+ */
+public class QueryMetrics {
+
+    private static final String DUMP_FILE = "query_metrics.csv";
+    private static final String HEADER = "time,method,calls,errors,p50_ms,p99_ms,max_ms,mean_ms,rows,rows_per_call," +
+            "statements,statements_per_call";
+    private static final String MBEAN_DOMAIN = "scheduling";
+
+    /**
+     * Seconds between dumps, set with -Dscheduling.metrics.dumpSeconds
+     */
+    private static final long DUMP_SECONDS = Long.getLong("scheduling.metrics.dumpSeconds", 300);
+
+    private static final ConcurrentHashMap<String, MethodMetrics> methods = new ConcurrentHashMap<>();
+
+    /**
+     * Statements created on the current thread, so each call can count the statements it ran
+     */
+    private static final ThreadLocal<long[]> threadStatements = ThreadLocal.withInitial(() -> new long[1]);
+
+    private static final Map<String, MethodMetrics.Snapshot> lastDump = new HashMap<>();
+    private static ScheduledExecutorService dumper;
+
+    /**
+     * Starts timing a call.  Call setRows once it succeeds and stop in a finally block.
+     * @param method name of the DBModel method
+     * @return the timer
+     */
+    public static Timer start(String method) {
+        MethodMetrics metrics = methods.get(method);
+        if (metrics == null) {
+            metrics = methods.computeIfAbsent(method, QueryMetrics::register);
+        }
+        return new Timer(metrics, threadStatements.get()[0]);
+    }
+
+    /**
+     * Counts a statement created on the current thread.  Called by the connection pool.
+     */
+    static void countStatement() {
+        threadStatements.get()[0]++;
+    }
+
+    /**
+     * @param method name of a DBModel method
+     * @return its metrics, or null if it hasn't been called
+     */
+    public static MethodMetrics get(String method) {
+        return methods.get(method);
+    }
+
+    /**
+     * Creates the metrics for a method and registers them with the platform MBean server
+     * @param method name of the method
+     * @return the metrics
+     */
+    private static MethodMetrics register(String method) {
+        MethodMetrics metrics = new MethodMetrics(method);
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(MBEAN_DOMAIN + ":type=QueryMetrics,name=" + method);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(metrics, name);
+            }
+        } catch (Exception e) {
+            System.out.println("Could not register query metrics for " + method + ": " + e.getMessage());
+        }
+        return metrics;
+    }
+
+    /**
+     * Starts appending the calls made since the last dump to query_metrics.csv on a background thread
+     */
+    public static synchronized void startDumps() {
+        if (dumper != null) {
+            return;
+        }
+        dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "query-metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(QueryMetrics::dump, DUMP_SECONDS, DUMP_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops the dumps, writes a last one and prints the totals for every method
+     */
+    public static void stopDumps() {
+        ScheduledExecutorService stopping;
+        synchronized (QueryMetrics.class) {
+            stopping = dumper;
+            dumper = null;
+        }
+        if (stopping != null) {
+            stopping.shutdownNow();
+            dump();
+        }
+        if (!methods.isEmpty()) {
+            System.out.println(getReport());
+        }
+    }
+
+    /**
+     * Appends one row per method called since the last dump to query_metrics.csv, writing a header first if the
+     * file is new
+     */
+    public static synchronized void dump() {
+        String time = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date());
+        List<String> rows = new ArrayList<>();
+        for (MethodMetrics metrics : new TreeMap<>(methods).values()) {
+            MethodMetrics.Snapshot current = metrics.snapshotInterval();
+            MethodMetrics.Snapshot previous = lastDump.put(metrics.getName(), current);
+            MethodMetrics.Snapshot interval = previous == null ? current : current.since(previous);
+            if (interval.getCalls() > 0) {
+                rows.add(time + "," + toCsv(metrics.getName(), interval));
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        File dumpFile = new File(DUMP_FILE);
+        boolean newFile = !dumpFile.exists();
+        try (FileWriter writer = new FileWriter(dumpFile, true)) {
+            if (newFile) {
+                writer.write(HEADER + "\n");
+            }
+            for (String row : rows) {
+                writer.write(row + "\n");
+            }
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * @return one line per method with its totals since startup, slowest p99 first
+     */
+    public static String getReport() {
+        List<Map.Entry<String, MethodMetrics.Snapshot>> snapshots = new ArrayList<>();
+        for (MethodMetrics metrics : methods.values()) {
+            snapshots.add(new AbstractMap.SimpleEntry<>(metrics.getName(), metrics.snapshot()));
+        }
+        snapshots.sort((a, b) -> Double.compare(b.getValue().percentileMillis(0.99),
+                a.getValue().percentileMillis(0.99)));
+        StringBuilder report = new StringBuilder("Query metrics (" + HEADER.substring(HEADER.indexOf(',') + 1) + "):");
+        for (Map.Entry<String, MethodMetrics.Snapshot> snapshot : snapshots) {
+            report.append("\n  ").append(toCsv(snapshot.getKey(), snapshot.getValue()));
+        }
+        return report.toString();
+    }
+
+    /**
+     * @param method method name
+     * @param snapshot counts to format
+     * @return the counts as a CSV row without the time
+     */
+    private static String toCsv(String method, MethodMetrics.Snapshot snapshot) {
+        return String.format(Locale.ROOT, "%s,%d,%d,%.3f,%.3f,%.3f,%.3f,%d,%.1f,%d,%.2f", method,
+                snapshot.getCalls(), snapshot.getErrors(), snapshot.percentileMillis(0.50),
+                snapshot.percentileMillis(0.99), snapshot.getMaxMillis(), snapshot.meanMillis(), snapshot.getRows(),
+                snapshot.rowsPerCall(), snapshot.getStatements(), snapshot.statementsPerCall());
+    }
+
+    /**
+     * Times one call, and covers it with a QueryEvent for flight recordings.  A call that never has its rows set
+     * is counted as an error.
+     */
+    public static class Timer {
+        private final MethodMetrics metrics;
+        private final long statementsAtStart;
+        private final QueryEvent event = new QueryEvent();
+        private final long started = System.nanoTime();
+        private int rows = -1;
+        private boolean stopped = false;
+
+        private Timer(MethodMetrics metrics, long statementsAtStart) {
+            this.metrics = metrics;
+            this.statementsAtStart = statementsAtStart;
+            event.begin();
+        }
+
+        /**
+         * Marks the call as successful
+         * @param rows rows returned or changed
+         */
+        public void setRows(int rows) {
+            this.rows = rows;
+        }
+
+        /**
+         * Records the call.  Only the first call to stop is recorded.
+         */
+        public void stop() {
+            if (stopped) {
+                return;
+            }
+            stopped = true;
+            long statements = threadStatements.get()[0] - statementsAtStart;
+            metrics.record(System.nanoTime() - started, rows, statements);
+            event.end();
+            if (event.shouldCommit()) {
+                event.sqlId = metrics.getName();
+                event.rows = Math.max(rows, 0);
+                event.statements = statements;
+                event.failed = rows < 0;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package helper;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event covering a navigation to another scene
+ * @author Jason Philpy
+ */
+@Name("scheduling.SceneLoad")
+@Label("Scene Load")
+@Category({"Scheduling", "JavaFX"})
+@Description("Showing a view, including parsing its fxml if it wasn't cached")
+public class SceneLoadEvent extends Event {
+
+    @Label("FXML")
+    public String fxml;
+
+    @Label("Cached")
+    @Description("True if the view was shown again without parsing")
+    public boolean cached;
+
+    @Label("Parse Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long parseTime;
+}
@@ -0,0 +1,284 @@
+package helper;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Brings the client_schedule schema up to date.  Migrations are numbered and each is applied once, in order, with
+ * the versions applied so far recorded in the schema_version table.  A MySQL named lock keeps two clients starting
+ * at once from applying the same migration.  Indexes are added online so the app keeps working while they build,
+ * and an index is skipped if an existing one already starts with the same columns, such as one MySQL created for
+ * a foreign key.  Run once at startup; nothing else waits on it, so a failed migration only costs the speed of
+ * the queries its indexes serve.  The tables change sync needs are separate migrations applied by
+ * migrateSyncTables, which startup runs first and which never waits on an index build.  What each migration did
+ * is added to the StartupReport notes rather than printed.
+ * @author Jason Philpy
+ */
+public class SchemaMigrator {
+
+    private static final String LOCK_NAME = "client_schedule.migrations";
+    private static final String SYNC_LOCK_NAME = "client_schedule.sync_migrations";
+
+    /**
+     * Longest wait for another client to finish migrating
+     */
+    private static final int LOCK_TIMEOUT_SECONDS = 600;
+
+    private static final String VERSION_TABLE_CREATE = "CREATE TABLE IF NOT EXISTS schema_version (" +
+            "Version INT NOT NULL PRIMARY KEY, Description VARCHAR(200) NOT NULL, Applied_At DATETIME NOT NULL, " +
+            "Execution_Millis BIGINT NOT NULL)";
+
+    /**
+     * Every migration, in the order they are applied.  Never change or renumber one that has shipped; add a new
+     * one instead.
+     */
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "Appointment index by customer for customer counts and country reports", conn ->
+                    addIndex(conn, "appointments", "appointments_customer", "Customer_ID")),
+            new Migration(2, "Customer and division indexes for country reports", conn -> {
+                addIndex(conn, "customers", "customers_division", "Division_ID");
+                addIndex(conn, "first_level_divisions", "first_level_divisions_country", "Country_ID");
+            }),
+            new Migration(3, "Last_Update indexes for change sync", conn -> {
+                addIndex(conn, "appointments", "appointments_last_update", "Last_Update");
+                addIndex(conn, "customers", "customers_last_update", "Last_Update");
+            }));
+
+    /**
+     * Tables change sync writes to, applied by migrateSyncTables.  Numbered in the same sequence as MIGRATIONS.
+     */
+    private static final List<Migration> SYNC_MIGRATIONS = List.of(
+            new Migration(4, "deleted_rows table for change sync", conn ->
+                    execute(conn, "CREATE TABLE IF NOT EXISTS deleted_rows (Table_Name VARCHAR(50) NOT NULL, " +
+                            "Row_ID INT NOT NULL, Deleted_At DATETIME NOT NULL, " +
+                            "PRIMARY KEY (Table_Name, Row_ID), KEY deleted_rows_deleted_at (Deleted_At))")));
+
+    private static final Object syncLock = new Object();
+
+    private static volatile boolean migrated = false;
+    private static volatile boolean syncMigrated = false;
+
+    /**
+     * Applies every migration this database hasn't had yet.  Returns right away once migrations have succeeded in
+     * this process.
+     * @throws SQLException if a migration fails, in which case it is retried on the next call
+     */
+    public static synchronized void migrate() throws SQLException {
+        if (migrated) {
+            return;
+        }
+        applyAll(MIGRATIONS, LOCK_NAME);
+        migrated = true;
+    }
+
+    /**
+     * Applies every sync table migration this database hasn't had yet.  Uses its own lock, so it never waits on
+     * another client building indexes.  Must succeed before change sync starts, since deletes and sync only read
+     * and write these tables and never create them.
+     * @throws SQLException if a migration fails, in which case it is retried on the next call
+     */
+    public static void migrateSyncTables() throws SQLException {
+        synchronized (syncLock) {
+            if (syncMigrated) {
+                return;
+            }
+            applyAll(SYNC_MIGRATIONS, SYNC_LOCK_NAME);
+            syncMigrated = true;
+        }
+    }
+
+    /**
+     * Applies the migrations in a list that haven't been applied yet, holding a named lock
+     * @param migrations migrations in the order to apply them
+     * @param lockName MySQL named lock to hold while applying
+     * @throws SQLException if a migration fails
+     */
+    private static void applyAll(List<Migration> migrations, String lockName) throws SQLException {
+        try (Connection conn = JDBC.getConnection()) {
+            if (!lock(conn, lockName)) {
+                throw new SQLException("Timed out waiting for another client to finish migrating the schema.");
+            }
+            try {
+                execute(conn, VERSION_TABLE_CREATE);
+                Set<Integer> applied = appliedVersions(conn);
+                for (Migration migration : migrations) {
+                    if (!applied.contains(migration.version)) {
+                        apply(conn, migration);
+                    }
+                }
+            } finally {
+                unlock(conn, lockName);
+            }
+        }
+    }
+
+    /**
+     * Applies one migration and records it
+     * @param conn connection holding the migration lock
+     * @param migration migration to apply
+     * @throws SQLException if the migration fails
+     */
+    private static void apply(Connection conn, Migration migration) throws SQLException {
+        long start = System.nanoTime();
+        migration.work.apply(conn);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO schema_version (Version, Description, " +
+                "Applied_At, Execution_Millis) VALUES (?, ?, ?, ?)")) {
+            ps.setInt(1, migration.version);
+            ps.setString(2, migration.description);
+            ps.setObject(3, LocalDateTime.now(ZoneOffset.UTC));
+            ps.setLong(4, millis);
+            ps.executeUpdate();
+        }
+        StartupReport.note("Schema migration " + migration.version + " applied in " + millis + " ms: " +
+                migration.description);
+    }
+
+    /**
+     * @param conn connection to query on
+     * @return versions already recorded in schema_version
+     * @throws SQLException for SQL error
+     */
+    private static Set<Integer> appliedVersions(Connection conn) throws SQLException {
+        Set<Integer> versions = new HashSet<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT Version FROM schema_version")) {
+            while (rs.next()) {
+                versions.add(rs.getInt("Version"));
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * Adds an index without blocking reads or writes, unless an existing index already starts with the same
+     * columns
+     * @param conn connection to run on
+     * @param table table to index
+     * @param name name of the new index
+     * @param columns indexed columns, in order
+     * @throws SQLException for SQL error
+     */
+    private static void addIndex(Connection conn, String table, String name, String... columns) throws SQLException {
+        String covering = findCoveringIndex(conn, table, Arrays.asList(columns));
+        if (covering != null) {
+            StartupReport.note("Skipping index " + name + ", " + table + " already has " + covering);
+            return;
+        }
+        execute(conn, "ALTER TABLE " + table + " ADD INDEX " + name + " (" + String.join(", ", columns) + "), " +
+                "ALGORITHM=INPLACE, LOCK=NONE");
+    }
+
+    /**
+     * Finds an index whose leading columns are the given columns
+     * @param conn connection to query on
+     * @param table table to look at
+     * @param columns columns in order
+     * @return name of the index, or null if there is none
+     * @throws SQLException for SQL error
+     */
+    private static String findCoveringIndex(Connection conn, String table, List<String> columns) throws SQLException {
+        Map<String, List<String>> indexes = new LinkedHashMap<>();
+        try (PreparedStatement ps = conn.prepareStatement("SELECT INDEX_NAME, COLUMN_NAME FROM " +
+                "information_schema.STATISTICS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? " +
+                "ORDER BY INDEX_NAME, SEQ_IN_INDEX")) {
+            ps.setString(1, table);
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                indexes.computeIfAbsent(rs.getString("INDEX_NAME"), index -> new ArrayList<>())
+                        .add(rs.getString("COLUMN_NAME"));
+            }
+        }
+        for (Map.Entry<String, List<String>> index : indexes.entrySet()) {
+            List<String> indexColumns = index.getValue();
+            if (indexColumns.size() >= columns.size() && sameOrder(indexColumns, columns)) {
+                return index.getKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param indexColumns columns of an index
+     * @param columns wanted leading columns
+     * @return true if the index starts with the wanted columns in order, ignoring case
+     */
+    private static boolean sameOrder(List<String> indexColumns, List<String> columns) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (!indexColumns.get(i).equalsIgnoreCase(columns.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Takes a migration lock, waiting for another client to release it
+     * @param conn connection to hold the lock on
+     * @param lockName name of the lock
+     * @return true if the lock was taken
+     * @throws SQLException for SQL error
+     */
+    private static boolean lock(Connection conn, String lockName) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            ps.setString(1, lockName);
+            ps.setInt(2, LOCK_TIMEOUT_SECONDS);
+            ResultSet rs = ps.executeQuery();
+            return rs.next() && rs.getInt(1) == 1;
+        }
+    }
+
+    /**
+     * Releases a migration lock
+     * @param conn connection holding the lock
+     * @param lockName name of the lock
+     */
+    private static void unlock(Connection conn, String lockName) {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            ps.setString(1, lockName);
+            ps.executeQuery();
+        } catch (SQLException e) {
+            StartupReport.note("Could not release migration lock: " + e.getMessage());
+        }
+    }
+
+    private static void execute(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate(sql);
+        }
+    }
+
+    /**
+     * Schema changes made by a migration
+     */
+    private interface MigrationWork {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    /**
+     * A numbered schema change
+     */
+    private static class Migration {
+        private final int version;
+        private final String description;
+        private final MigrationWork work;
+
+        private Migration(int version, String description, MigrationWork work) {
+            this.version = version;
+            this.description = description;
+            this.work = work;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package helper;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event marking a startup phase being reached
+ * @author Jason Philpy
+ */
+@Name("scheduling.StartupPhase")
+@Label("Startup Phase")
+@Category({"Scheduling", "Startup"})
+@StackTrace(false)
+public class StartupPhaseEvent extends Event {
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Since JVM Start")
+    @Timespan(Timespan.MILLISECONDS)
+    public long sinceJvmStart;
+}
@@ -0,0 +1,125 @@
+package helper;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records when each startup phase is reached, in milliseconds since the JVM started.  Only the first time a phase
+ * is reached is kept, and a StartupPhaseEvent is emitted for it.  Startup work that has something to say, such as
+ * schema migrations, adds notes instead of printing.  The report is printed and appended to startup_report.csv
+ * on exit so startup times can be compared from run to run.
+ * @author Jason Philpy
+ */
+public class StartupReport {
+
+    public static final String MAIN = "main";
+    public static final String FX_TOOLKIT_READY = "fx toolkit ready";
+    public static final String FIRST_FRAME = "first frame";
+    public static final String DB_CONNECTED = "db connected";
+    public static final String FIRST_QUERY = "first query";
+
+    /**
+     * Phases in the order the report file lists them
+     */
+    private static final String[] PHASES = {MAIN, FX_TOOLKIT_READY, FIRST_FRAME, DB_CONNECTED, FIRST_QUERY};
+
+    private static final String REPORT_FILE = "startup_report.csv";
+
+    private static final long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private static final LinkedHashMap<String, Long> marks = new LinkedHashMap<>();
+    private static final List<String> notes = new ArrayList<>();
+    private static volatile boolean firstQueryMarked = false;
+
+    /**
+     * Records that a phase has been reached, if it hasn't been already
+     * @param phase name of the phase
+     */
+    public static synchronized void mark(String phase) {
+        long sinceStart = System.currentTimeMillis() - jvmStart;
+        if (marks.putIfAbsent(phase, sinceStart) == null) {
+            StartupPhaseEvent event = new StartupPhaseEvent();
+            if (event.shouldCommit()) {
+                event.phase = phase;
+                event.sinceJvmStart = sinceStart;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Records the first completed query.  Cheap to call after every query.
+     */
+    public static void markFirstQuery() {
+        if (!firstQueryMarked) {
+            firstQueryMarked = true;
+            mark(FIRST_QUERY);
+        }
+    }
+
+    /**
+     * Adds a line to the notes printed with the report
+     * @param note text of the note
+     */
+    public static synchronized void note(String note) {
+        notes.add(note);
+    }
+
+    /**
+     * @return a copy of every phase reached so far and its milliseconds since the JVM started, in order reached
+     */
+    public static synchronized Map<String, Long> getMarks() {
+        return new LinkedHashMap<>(marks);
+    }
+
+    /**
+     * @return one line per phase reached, in order reached, followed by the notes
+     */
+    public static synchronized String getReport() {
+        StringBuilder report = new StringBuilder("Startup report (ms since JVM start):");
+        for (Map.Entry<String, Long> mark : marks.entrySet()) {
+            report.append("\n  ").append(mark.getKey()).append(": ").append(mark.getValue());
+        }
+        if (!notes.isEmpty()) {
+            report.append("\nStartup notes:");
+            for (String note : notes) {
+                report.append("\n  ").append(note);
+            }
+        }
+        return report.toString();
+    }
+
+    /**
+     * Prints the report and appends one row to startup_report.csv, writing a header first if the file is new.
+     * Phases that were never reached are left blank.
+     */
+    public static synchronized void write() {
+        System.out.println(getReport());
+        File reportFile = new File(REPORT_FILE);
+        boolean newFile = !reportFile.exists();
+        try (FileWriter writer = new FileWriter(reportFile, true)) {
+            if (newFile) {
+                writer.write("run");
+                for (String phase : PHASES) {
+                    writer.write("," + phase);
+                }
+                writer.write("\n");
+            }
+            writer.write(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date(jvmStart)));
+            for (String phase : PHASES) {
+                Long millis = marks.get(phase);
+                writer.write("," + (millis == null ? "" : millis.toString()));
+            }
+            writer.write("\n");
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package helper;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event covering filling a table with rows and laying it out
+ * @author Jason Philpy
+ */
+@Name("scheduling.TablePopulate")
+@Label("Table Populate")
+@Category({"Scheduling", "JavaFX"})
+@Description("Replacing the rows of a table view and laying it out")
+public class TablePopulateEvent extends Event {
+
+    @Label("View")
+    public String view;
+
+    @Label("Rows")
+    public int rows;
+}
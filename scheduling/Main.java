@@ -1,13 +1,23 @@
 package scheduling;
 
 import helper.JDBC;
+import helper.QueryMetrics;
+import helper.SchemaMigrator;
+import helper.StartupReport;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import scheduling.Model.DBExecutor;
+import scheduling.Model.DBModel;
+import scheduling.Model.Logger;
+import scheduling.Model.ReferenceDataCache;
+import scheduling.Model.SyncService;
 import scheduling.Model.User;
 import java.net.URL;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Main application class
@@ -21,14 +31,21 @@ public class Main extends Application {
     private static Stage primaryStage;
     private static User user;
 
+    /**
+     * Completed once the tables change sync uses exist
+     */
+    private static final CompletableFuture<Void> syncTablesReady = new CompletableFuture<>();
+
     @Override
     public void start(Stage primaryStage) throws Exception {
+        StartupReport.mark(StartupReport.FX_TOOLKIT_READY);
         URL url = getClass().getResource("Views/Login.fxml");
         if (url != null) {
             Parent root = FXMLLoader.load(url);
             primaryStage.setTitle("Scheduling Program");
             primaryStage.setScene(new Scene(root, 600, 400));
             primaryStage.setResizable(false);
+            primaryStage.setOnShown(event -> StartupReport.mark(StartupReport.FIRST_FRAME));
             primaryStage.show();
             Main.primaryStage = primaryStage;
         }
@@ -58,9 +75,49 @@ public class Main extends Application {
         return Main.user;
     }
 
+    /**
+     * @return a future completed once the tables change sync uses exist, or completed exceptionally if they
+     * couldn't be created
+     */
+    public static CompletableFuture<Void> whenSyncTablesReady() {
+        return syncTablesReady;
+    }
+
+    /**
+     * Brings the database schema up to date, and with -Dscheduling.verifyQueryPlans=true checks that the hot
+     * queries use its indexes.  Runs on the connection thread once the database is reached, so startup doesn't
+     * wait on index builds.  The sync tables are created first so change sync can start without waiting on the
+     * index migrations.
+     */
+    private static void migrateSchema() {
+        try {
+            SchemaMigrator.migrateSyncTables();
+            syncTablesReady.complete(null);
+        } catch (SQLException e) {
+            System.out.println("Sync table migration failed: " + e.getMessage());
+            syncTablesReady.completeExceptionally(e);
+        }
+        try {
+            SchemaMigrator.migrate();
+            if (Boolean.getBoolean("scheduling.verifyQueryPlans")) {
+                DBModel.verifyQueryPlans();
+            }
+        } catch (SQLException e) {
+            System.out.println("Schema migration failed: " + e.getMessage());
+        }
+    }
+
     public static void main(String[] args) {
-        JDBC.openConnection();
+        StartupReport.mark(StartupReport.MAIN);
+        JDBC.openConnectionInBackground().thenRun(Main::migrateSchema);
+        QueryMetrics.startDumps();
         launch(args);
+        SyncService.stop();
+        DBExecutor.shutdown();
+        Logger.shutdown();
         JDBC.closeConnection();
+        QueryMetrics.stopDumps();
+        System.out.println(ReferenceDataCache.getReport());
+        StartupReport.write();
     }
 }
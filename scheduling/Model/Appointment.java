@@ -1,115 +1,154 @@
 package scheduling.Model;
 
 import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Appointment class representing data for a row in the appointments table
+ * Immutable appointment class representing data for a row in the appointments table.  Times are kept as epoch
+ * milliseconds, type and location are shared through a dictionary since few distinct values repeat across many
+ * rows, and the contact is referenced rather than copied.  Measured with benchmark.AppointmentHeapBenchmark, an
+ * appointment holds 72 bytes plus its title and description, against a target of 80.
  * @author Jason Philpy
  */
 public class Appointment {
-    private int id;
-    private String title;
-    private String description;
-    private String location;
-    private String type;
-    private Date start;
-    private Date end;
-    private int customerID;
-    private int contactID;
-    private String contactName;
-    private int userID;
 
-    public Appointment(int id, String title, String description, String location, String type, Date start, Date end, int customerID, Contact contact, int userID) {
+    /**
+     * One shared copy of each type and location in use
+     */
+    private static final ConcurrentHashMap<String, String> dictionary = new ConcurrentHashMap<>();
+
+    private final int id;
+    private final String title;
+    private final String description;
+    private final String location;
+    private final String type;
+    private final long start;
+    private final long end;
+    private final int customerID;
+    private final Contact contact;
+    private final int userID;
+    private final long lastUpdate;
+
+    public Appointment(int id, String title, String description, String location, String type, long start, long end, int customerID, Contact contact, int userID, long lastUpdate) {
         this.id = id;
         this.title = title;
         this.description = description;
-        this.location = location;
-        this.type = type;
+        this.location = shared(location);
+        this.type = shared(type);
         this.start = start;
         this.end = end;
         this.customerID = customerID;
-        this.contactID = contact.getId();
-        this.contactName = contact.getName();
+        this.contact = contact;
         this.userID = userID;
+        this.lastUpdate = lastUpdate;
     }
 
-    public int getId() {
-        return id;
+    public Appointment(int id, String title, String description, String location, String type, long start, long end, int customerID, Contact contact, int userID) {
+        this(id, title, description, location, type, start, end, customerID, contact, userID, 0);
     }
 
-    public void setId(int id) {
-        this.id = id;
+    public Appointment(int id, String title, String description, String location, String type, Date start, Date end, int customerID, Contact contact, int userID) {
+        this(id, title, description, location, type, start.getTime(), end.getTime(), customerID, contact, userID);
     }
 
-    public String getTitle() {
-        return title;
+    /**
+     * Gets the shared copy of a type or location
+     * @param value string read from a row
+     * @return the dictionary copy of the string
+     */
+    private static String shared(String value) {
+        if (value == null) {
+            return null;
+        }
+        String existing = dictionary.putIfAbsent(value, value);
+        return existing == null ? value : existing;
     }
 
-    public void setTitle(String title) {
-        this.title = title;
+    /**
+     * Copies this appointment with a new id, used once the database assigns one
+     * @param id new Appointment_ID
+     * @return the copy
+     */
+    public Appointment withId(int id) {
+        return new Appointment(id, title, description, location, type, start, end, customerID, contact, userID, lastUpdate);
     }
 
-    public String getDescription() {
-        return description;
+    /**
+     * Copies this appointment with a new Last_Update, used once it has been written
+     * @param lastUpdate new Last_Update in epoch milliseconds
+     * @return the copy
+     */
+    public Appointment withLastUpdate(long lastUpdate) {
+        return new Appointment(id, title, description, location, type, start, end, customerID, contact, userID, lastUpdate);
     }
 
-    public void setDescription(String description) {
-        this.description = description;
+    public int getId() {
+        return id;
     }
 
-    public String getLocation() {
-        return location;
+    public String getTitle() {
+        return title;
     }
 
-    public void setLocation(String location) {
-        this.location = location;
+    public String getDescription() {
+        return description;
     }
 
-    public String getType() {
-        return type;
+    public String getLocation() {
+        return location;
     }
 
-    public void setType(String type) {
-        this.type = type;
+    public String getType() {
+        return type;
     }
 
-    public Date getStart() {
+    public long getStartMillis() {
         return start;
     }
 
-    public void setStart(Date start) {
-        this.start = start;
+    public long getEndMillis() {
+        return end;
     }
 
-    public Date getEnd() {
-        return end;
+    /**
+     * @return a new Date for the start time
+     */
+    public Date getStart() {
+        return new Date(start);
     }
 
-    public void setEnd(Date end) {
-        this.end = end;
+    /**
+     * @return a new Date for the end time
+     */
+    public Date getEnd() {
+        return new Date(end);
     }
 
     public int getCustomerID() {
         return customerID;
     }
 
-    public void setCustomerID(int customerID) {
-        this.customerID = customerID;
+    public Contact getContact() {
+        return contact;
     }
 
     public int getContactID() {
-        return contactID;
+        return contact.getId();
     }
 
-    public void setContactID(int contactID) {
-        this.contactID = contactID;
+    public String getContactName() {
+        return contact.getName();
     }
 
     public int getUserID() {
         return userID;
     }
 
-    public void setUserID(int userID) {
-        this.userID = userID;
+    /**
+     * @return Last_Update in epoch milliseconds, or 0 if this appointment wasn't read from the database or its
+     * Last_Update is NULL
+     */
+    public long getLastUpdateMillis() {
+        return lastUpdate;
     }
 }
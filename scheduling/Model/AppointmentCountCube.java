@@ -0,0 +1,160 @@
+package scheduling.Model;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * In-memory count of appointments by year, month and type.  Each appointment is counted in the UTC year and month
+ * of its start time, matching YEAR(Start) and MONTH(Start) on the database.  Kept current one appointment at a time
+ * so the totals report never has to scan the appointments table.
+ * @author Jason Philpy
+ */
+public class AppointmentCountCube {
+
+    /**
+     * Appointment count for each year, month and type
+     */
+    private final HashMap<Cell, Integer> counts = new HashMap<>();
+
+    /**
+     * Cell each appointment is counted in, so updates and deletes know what to decrement
+     */
+    private final HashMap<Integer, Cell> byId = new HashMap<>();
+
+    /**
+     * Appointment count per year, sorted by year
+     */
+    private final TreeMap<Integer, Integer> yearCounts = new TreeMap<>();
+
+    /**
+     * Appointment count per type, sorted by type
+     */
+    private final TreeMap<String, Integer> typeCounts = new TreeMap<>();
+
+    private boolean loaded = false;
+
+    /**
+     * @return true once the cube has been filled from the database
+     */
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Marks the cube as filled
+     */
+    public synchronized void setLoaded() {
+        loaded = true;
+    }
+
+    /**
+     * Empties the cube so it will be reloaded
+     */
+    public synchronized void clear() {
+        counts.clear();
+        byId.clear();
+        yearCounts.clear();
+        typeCounts.clear();
+        loaded = false;
+    }
+
+    /**
+     * Counts an appointment, moving it out of its old cell if it was already counted
+     * @param id Appointment_ID
+     * @param type appointment type
+     * @param start start time in epoch milliseconds
+     */
+    public synchronized void put(int id, String type, long start) {
+        remove(id);
+        ZonedDateTime utcStart = Instant.ofEpochMilli(start).atZone(ZoneOffset.UTC);
+        Cell cell = new Cell(utcStart.getYear(), utcStart.getMonthValue(), type == null ? "" : type);
+        byId.put(id, cell);
+        counts.merge(cell, 1, Integer::sum);
+        yearCounts.merge(cell.year, 1, Integer::sum);
+        typeCounts.merge(cell.type, 1, Integer::sum);
+    }
+
+    /**
+     * Stops counting an appointment if it is counted
+     * @param id Appointment_ID
+     */
+    public synchronized void remove(int id) {
+        Cell cell = byId.remove(id);
+        if (cell != null) {
+            decrement(counts, cell);
+            decrement(yearCounts, cell.year);
+            decrement(typeCounts, cell.type);
+        }
+    }
+
+    /**
+     * Gets the number of appointments of a type starting in a month
+     * @param year year of appointments
+     * @param month month of appointments, 1 to 12
+     * @param type appointments of this type
+     * @return number of appointments
+     */
+    public synchronized int getCount(int year, int month, String type) {
+        return counts.getOrDefault(new Cell(year, month, type), 0);
+    }
+
+    /**
+     * @return every year with at least one appointment, in order
+     */
+    public synchronized List<Integer> getYears() {
+        return new ArrayList<>(yearCounts.keySet());
+    }
+
+    /**
+     * @return every appointment type in use, in order
+     */
+    public synchronized List<String> getTypes() {
+        return new ArrayList<>(typeCounts.keySet());
+    }
+
+    /**
+     * Lowers a count by one, dropping it when it reaches zero
+     * @param map counts to change
+     * @param key count to lower
+     * @param <K> key type
+     */
+    private static <K> void decrement(Map<K, Integer> map, K key) {
+        map.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+    }
+
+    /**
+     * A year, month and type combination
+     */
+    private static class Cell {
+        private final int year;
+        private final int month;
+        private final String type;
+
+        private Cell(int year, int month, String type) {
+            this.year = year;
+            this.month = month;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Cell)) {
+                return false;
+            }
+            Cell cell = (Cell) o;
+            return year == cell.year && month == cell.month && Objects.equals(type, cell.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(year, month, type);
+        }
+    }
+}
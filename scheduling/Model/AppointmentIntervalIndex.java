@@ -0,0 +1,123 @@
+package scheduling.Model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * In-memory index of appointment start/end times used to find overlapping appointments without querying the
+ * database.  Intervals are kept sorted by start time, and the longest interval seen bounds how far back a search
+ * has to look, so an overlap query costs O(log n + k) where k is the number of appointments starting within one
+ * maximum appointment length of the window.  Appointments are limited to business hours, which keeps k small.
+ * @author Jason Philpy
+ */
+public class AppointmentIntervalIndex {
+
+    /**
+     * Intervals ordered by start time, then id
+     */
+    private final TreeSet<Interval> byStart = new TreeSet<>((a, b) -> a.start != b.start ?
+            Long.compare(a.start, b.start) : Integer.compare(a.id, b.id));
+
+    /**
+     * Intervals by Appointment_ID for updates and removals
+     */
+    private final HashMap<Integer, Interval> byId = new HashMap<>();
+
+    /**
+     * Longest appointment length seen, never shrinks
+     */
+    private long maxLength = 0;
+
+    private boolean loaded = false;
+
+    /**
+     * @return true once the index has been filled from the database
+     */
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Marks the index as filled
+     */
+    public synchronized void setLoaded() {
+        loaded = true;
+    }
+
+    /**
+     * Empties the index so it will be reloaded
+     */
+    public synchronized void clear() {
+        byStart.clear();
+        byId.clear();
+        maxLength = 0;
+        loaded = false;
+    }
+
+    /**
+     * Adds an appointment, or moves it if it is already indexed
+     * @param id Appointment_ID
+     * @param start start time in epoch milliseconds
+     * @param end end time in epoch milliseconds
+     */
+    public synchronized void put(int id, long start, long end) {
+        remove(id);
+        Interval interval = new Interval(id, start, end);
+        byStart.add(interval);
+        byId.put(id, interval);
+        maxLength = Math.max(maxLength, end - start);
+    }
+
+    /**
+     * Removes an appointment if it is indexed
+     * @param id Appointment_ID
+     */
+    public synchronized void remove(int id) {
+        Interval interval = byId.remove(id);
+        if (interval != null) {
+            byStart.remove(interval);
+        }
+    }
+
+    /**
+     * Finds appointments that overlap the window (end > start and start < end)
+     * @param start window start in epoch milliseconds
+     * @param end window end in epoch milliseconds
+     * @return Appointment_IDs of the overlapping appointments, ordered by start time
+     */
+    public synchronized List<Integer> findOverlaps(long start, long end) {
+        List<Integer> overlaps = new ArrayList<>();
+        Interval from = new Interval(Integer.MIN_VALUE, start - maxLength, 0);
+        Interval to = new Interval(Integer.MIN_VALUE, end, 0);
+        for (Interval interval : byStart.subSet(from, true, to, false)) {
+            if (interval.end > start) {
+                overlaps.add(interval.id);
+            }
+        }
+        return overlaps;
+    }
+
+    /**
+     * @return number of indexed appointments
+     */
+    public synchronized int size() {
+        return byId.size();
+    }
+
+    /**
+     * Start and end of a single appointment
+     */
+    private static class Interval {
+        private final int id;
+        private final long start;
+        private final long end;
+
+        private Interval(int id, long start, long end) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package scheduling.Model;
+
+/**
+ * Thrown when an appointment would overlap another appointment for the same customer
+ * @author Jason Philpy
+ */
+public class AppointmentOverlapException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    private final int overlappingId;
+
+    /**
+     * @param overlappingId Appointment_ID of the appointment it overlaps
+     */
+    public AppointmentOverlapException(int overlappingId) {
+        super("Appointment overlaps with existing appointment " + overlappingId + ".");
+        this.overlappingId = overlappingId;
+    }
+
+    /**
+     * @return Appointment_ID of the appointment it overlaps
+     */
+    public int getOverlappingId() {
+        return overlappingId;
+    }
+}
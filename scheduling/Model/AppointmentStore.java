@@ -0,0 +1,404 @@
+package scheduling.Model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Columnar in-memory copy of the appointments table.  Each column is a parallel array sorted by start time, so a
+ * time window is found with two binary searches and contact, customer and user filters are tight loops over int
+ * arrays.  Only matching rows are turned back into Appointment objects.  Writes don't shift the columns: a removed
+ * row is left as a tombstone and an added one goes into a small sorted list of pending rows that searches merge
+ * in, and both are folded back into the columns once enough have built up.
+ * @author Jason Philpy
+ */
+public class AppointmentStore {
+
+    /**
+     * Filter value matching any contact, customer or user
+     */
+    public static final int ANY = -1;
+
+    /**
+     * Tombstones and pending rows allowed before the columns are rebuilt, or 1/256 of the rows if that is more
+     */
+    private static final int COMPACT_THRESHOLD = 4096;
+
+    private static final Comparator<Appointment> BY_START = (a, b) -> a.getStartMillis() != b.getStartMillis() ?
+            Long.compare(a.getStartMillis(), b.getStartMillis()) : Integer.compare(a.getId(), b.getId());
+
+    private int size = 0;
+    private int[] ids = new int[0];
+    private long[] starts = new long[0];
+    private long[] ends = new long[0];
+    private int[] contactIDs = new int[0];
+    private int[] customerIDs = new int[0];
+    private int[] userIDs = new int[0];
+
+    /**
+     * Appointment for each row, or null for a removed row
+     */
+    private Appointment[] rows = new Appointment[0];
+
+    /**
+     * Removed rows still in the columns
+     */
+    private int tombstones = 0;
+
+    /**
+     * Appointments added since the columns were built, ordered by start time then id
+     */
+    private final ArrayList<Appointment> pending = new ArrayList<>();
+
+    /**
+     * Every stored appointment by Appointment_ID, so a write finds its row with a binary search
+     */
+    private final HashMap<Integer, Appointment> byId = new HashMap<>();
+
+    private boolean loaded = false;
+
+    /**
+     * @return true once the store has been filled from the database
+     */
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Replaces the contents of the store and marks it as filled
+     * @param appointments every appointment, in any order
+     */
+    public synchronized void load(Collection<Appointment> appointments) {
+        Appointment[] sorted = appointments.toArray(new Appointment[0]);
+        Arrays.sort(sorted, BY_START);
+        pending.clear();
+        byId.clear();
+        tombstones = 0;
+        size = 0;
+        allocate(sorted.length + sorted.length / 8 + 16);
+        for (Appointment appt : sorted) {
+            set(size++, appt);
+            byId.put(appt.getId(), appt);
+        }
+        loaded = true;
+    }
+
+    /**
+     * Empties the store so it will be reloaded
+     */
+    public synchronized void clear() {
+        pending.clear();
+        byId.clear();
+        tombstones = 0;
+        size = 0;
+        allocate(0);
+        loaded = false;
+    }
+
+    /**
+     * Adds an appointment in start order, replacing it if it is already stored
+     * @param appt appointment to store
+     */
+    public synchronized void put(Appointment appt) {
+        remove(appt.getId());
+        int index = Collections.binarySearch(pending, appt, BY_START);
+        pending.add(index < 0 ? -index - 1 : index, appt);
+        byId.put(appt.getId(), appt);
+        compactIfNeeded();
+    }
+
+    /**
+     * Removes an appointment if it is stored
+     * @param id Appointment_ID
+     */
+    public synchronized void remove(int id) {
+        Appointment appt = byId.remove(id);
+        if (appt == null) {
+            return;
+        }
+        int row = firstRowAtOrAfter(appt, size);
+        if (row < size && rows[row] == appt) {
+            rows[row] = null;
+            tombstones++;
+            compactIfNeeded();
+        } else {
+            pending.remove(Collections.binarySearch(pending, appt, BY_START));
+        }
+    }
+
+    /**
+     * Finds the appointments starting within a window that match the given contact, customer and user
+     * @param from earliest start time in epoch milliseconds
+     * @param to start times must be before this
+     * @param contactID Contact_ID to match, or ANY
+     * @param customerID Customer_ID to match, or ANY
+     * @param userID User_ID to match, or ANY
+     * @return matching appointments ordered by start time
+     */
+    public synchronized List<Appointment> find(long from, long to, int contactID, int customerID, int userID) {
+        int first = firstStartAtOrAfter(from);
+        int last = firstStartAtOrAfter(to);
+        List<Appointment> found = new ArrayList<>(Math.max(0, Math.min(last - first, 1024)));
+        for (int row = first; row < last; row++) {
+            if (rows[row] != null && (contactID == ANY || contactIDs[row] == contactID) &&
+                    (customerID == ANY || customerIDs[row] == customerID) &&
+                    (userID == ANY || userIDs[row] == userID)) {
+                found.add(rows[row]);
+            }
+        }
+        List<Appointment> added = new ArrayList<>();
+        int lastPending = firstPendingAtOrAfter(to);
+        for (int index = firstPendingAtOrAfter(from); index < lastPending; index++) {
+            Appointment appt = pending.get(index);
+            if (matches(appt, contactID, customerID, userID)) {
+                added.add(appt);
+            }
+        }
+        return added.isEmpty() ? found : merge(found, added);
+    }
+
+    /**
+     * Counts the appointments starting within a window that match the given contact, customer and user
+     * @param from earliest start time in epoch milliseconds
+     * @param to start times must be before this
+     * @param contactID Contact_ID to match, or ANY
+     * @param customerID Customer_ID to match, or ANY
+     * @param userID User_ID to match, or ANY
+     * @return number of matching appointments
+     */
+    public synchronized int count(long from, long to, int contactID, int customerID, int userID) {
+        int first = firstStartAtOrAfter(from);
+        int last = firstStartAtOrAfter(to);
+        int count = 0;
+        int lastPending = firstPendingAtOrAfter(to);
+        for (int index = firstPendingAtOrAfter(from); index < lastPending; index++) {
+            if (matches(pending.get(index), contactID, customerID, userID)) {
+                count++;
+            }
+        }
+        if (contactID == ANY && customerID == ANY && userID == ANY && tombstones == 0) {
+            return count + last - first;
+        }
+        for (int row = first; row < last; row++) {
+            if (rows[row] != null && (contactID == ANY || contactIDs[row] == contactID) &&
+                    (customerID == ANY || customerIDs[row] == customerID) &&
+                    (userID == ANY || userIDs[row] == userID)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return every stored appointment ordered by start time
+     */
+    public synchronized List<Appointment> getAll() {
+        List<Appointment> all = new ArrayList<>(size - tombstones);
+        for (int row = 0; row < size; row++) {
+            if (rows[row] != null) {
+                all.add(rows[row]);
+            }
+        }
+        return pending.isEmpty() ? all : merge(all, pending);
+    }
+
+    /**
+     * @return number of stored appointments
+     */
+    public synchronized int size() {
+        return byId.size();
+    }
+
+    /**
+     * @param appt appointment to check
+     * @param contactID Contact_ID to match, or ANY
+     * @param customerID Customer_ID to match, or ANY
+     * @param userID User_ID to match, or ANY
+     * @return true if the appointment matches every filter
+     */
+    private static boolean matches(Appointment appt, int contactID, int customerID, int userID) {
+        return (contactID == ANY || appt.getContactID() == contactID) &&
+                (customerID == ANY || appt.getCustomerID() == customerID) &&
+                (userID == ANY || appt.getUserID() == userID);
+    }
+
+    /**
+     * @param a appointments ordered by start time then id
+     * @param b appointments ordered by start time then id
+     * @return both lists merged in the same order
+     */
+    private static List<Appointment> merge(List<Appointment> a, List<Appointment> b) {
+        List<Appointment> merged = new ArrayList<>(a.size() + b.size());
+        int i = 0;
+        int j = 0;
+        while (i < a.size() && j < b.size()) {
+            merged.add(BY_START.compare(a.get(i), b.get(j)) <= 0 ? a.get(i++) : b.get(j++));
+        }
+        merged.addAll(a.subList(i, a.size()));
+        merged.addAll(b.subList(j, b.size()));
+        return merged;
+    }
+
+    /**
+     * Rebuilds the columns in place without tombstones and with the pending rows merged in, once enough have built
+     * up.  Rows are moved in runs with block copies, so this costs about one copy of the columns.
+     */
+    private void compactIfNeeded() {
+        if (tombstones + pending.size() <= Math.max(COMPACT_THRESHOLD, size >> 8)) {
+            return;
+        }
+        int live = 0;
+        int row = 0;
+        while (row < size) {
+            if (rows[row] == null) {
+                row++;
+                continue;
+            }
+            int end = row;
+            while (end < size && rows[end] != null) {
+                end++;
+            }
+            shift(row, live, end - row);
+            live += end - row;
+            row = end;
+        }
+        Arrays.fill(rows, live, size, null);
+        size = live;
+        int total = size + pending.size();
+        if (total > ids.length) {
+            resize(total + total / 8 + 16);
+        }
+        int high = size;
+        for (int next = pending.size() - 1; next >= 0; next--) {
+            Appointment appt = pending.get(next);
+            int after = firstRowAtOrAfter(appt, high);
+            shift(after, after + next + 1, high - after);
+            set(after + next, appt);
+            high = after;
+        }
+        size = total;
+        pending.clear();
+        tombstones = 0;
+    }
+
+    /**
+     * Binary search for the first row ordered at or after an appointment, by start time then id
+     * @param appt appointment to find or place
+     * @param high rows at or past this are not searched
+     * @return row index, or high if every searched row comes first
+     */
+    private int firstRowAtOrAfter(Appointment appt, int high) {
+        int low = 0;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] < appt.getStartMillis() ||
+                    starts[mid] == appt.getStartMillis() && ids[mid] < appt.getId()) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Binary search for the first pending appointment starting at or after a time
+     * @param time epoch milliseconds
+     * @return index into pending, or its size if every pending appointment starts before the time
+     */
+    private int firstPendingAtOrAfter(long time) {
+        int low = 0;
+        int high = pending.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (pending.get(mid).getStartMillis() < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Binary search for the first row starting at or after a time
+     * @param time epoch milliseconds
+     * @return row index, or size if every row starts before the time
+     */
+    private int firstStartAtOrAfter(long time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Writes an appointment into every column of a row
+     * @param row row index
+     * @param appt appointment to write
+     */
+    private void set(int row, Appointment appt) {
+        ids[row] = appt.getId();
+        starts[row] = appt.getStartMillis();
+        ends[row] = appt.getEndMillis();
+        contactIDs[row] = appt.getContactID();
+        customerIDs[row] = appt.getCustomerID();
+        userIDs[row] = appt.getUserID();
+        rows[row] = appt;
+    }
+
+    /**
+     * Moves a run of rows within every column
+     * @param from first row to move
+     * @param to where the first row ends up
+     * @param length number of rows to move
+     */
+    private void shift(int from, int to, int length) {
+        System.arraycopy(ids, from, ids, to, length);
+        System.arraycopy(starts, from, starts, to, length);
+        System.arraycopy(ends, from, ends, to, length);
+        System.arraycopy(contactIDs, from, contactIDs, to, length);
+        System.arraycopy(customerIDs, from, customerIDs, to, length);
+        System.arraycopy(userIDs, from, userIDs, to, length);
+        System.arraycopy(rows, from, rows, to, length);
+    }
+
+    /**
+     * Changes the capacity of every column, keeping the stored rows
+     * @param capacity new capacity, at least size
+     */
+    private void resize(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        contactIDs = Arrays.copyOf(contactIDs, capacity);
+        customerIDs = Arrays.copyOf(customerIDs, capacity);
+        userIDs = Arrays.copyOf(userIDs, capacity);
+        rows = Arrays.copyOf(rows, capacity);
+    }
+
+    /**
+     * Replaces every column with an empty one
+     * @param capacity capacity of the new columns
+     */
+    private void allocate(int capacity) {
+        ids = new int[capacity];
+        starts = new long[capacity];
+        ends = new long[capacity];
+        contactIDs = new int[capacity];
+        customerIDs = new int[capacity];
+        userIDs = new int[capacity];
+        rows = new Appointment[capacity];
+    }
+}
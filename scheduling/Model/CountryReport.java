@@ -0,0 +1,29 @@
+package scheduling.Model;
+
+/**
+ * Customer and appointment totals for a single country
+ * @author Jason Philpy
+ */
+public class CountryReport {
+    private final Country country;
+    private final int customerCount;
+    private final int appointmentCount;
+
+    public CountryReport(Country country, int customerCount, int appointmentCount) {
+        this.country = country;
+        this.customerCount = customerCount;
+        this.appointmentCount = appointmentCount;
+    }
+
+    public Country getCountry() {
+        return country;
+    }
+
+    public int getCustomerCount() {
+        return customerCount;
+    }
+
+    public int getAppointmentCount() {
+        return appointmentCount;
+    }
+}
@@ -15,6 +15,7 @@ public class Customer {
     private String phone;
     private Division division;
     private Country country;
+    private long lastUpdate;
 
     public Customer(int id, String name, String address, String postalCode, String phone, Division division, Country country) {
         this.id = id;
@@ -82,6 +83,18 @@ public class Customer {
         this.country = country;
     }
 
+    /**
+     * @return Last_Update in epoch milliseconds, or 0 if this customer wasn't read from the database or its
+     * Last_Update is NULL
+     */
+    public long getLastUpdateMillis() {
+        return lastUpdate;
+    }
+
+    public void setLastUpdateMillis(long lastUpdate) {
+        this.lastUpdate = lastUpdate;
+    }
+
     public static class CustomerStringConverter extends StringConverter<Customer> {
         @Override
         public String toString(Customer customer) {
@@ -0,0 +1,115 @@
+package scheduling.Model;
+
+import javafx.application.Platform;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs database work on a small pool of background threads so the JavaFX application thread never waits on
+ * the database.  Results are handed back to the JavaFX application thread with Platform.runLater.
+ * @author Jason Philpy
+ */
+public class DBExecutor {
+
+    /**
+     * Number of worker threads, kept at or below the connection pool size so workers don't queue on connections
+     */
+    private static final int WORKERS = 4;
+
+    /**
+     * Most tasks allowed to wait for a worker before new work is rejected
+     */
+    private static final int QUEUE_CAPACITY = 256;
+
+    /**
+     * Executor that runs tasks on the JavaFX application thread
+     */
+    public static final Executor FX_THREAD = Platform::runLater;
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    private static final ThreadPoolExecutor workers = new ThreadPoolExecutor(WORKERS, WORKERS, 60,
+            TimeUnit.SECONDS, new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                Thread thread = new Thread(runnable, "db-worker-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    static {
+        workers.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Runs database work on a worker thread
+     * @param work the database call to make
+     * @param <T> type of the result
+     * @return a future completed on the worker thread with the result
+     */
+    public static <T> CompletableFuture<T> supply(Callable<T> work) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            workers.execute(() -> {
+                try {
+                    future.complete(work.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Runs database work on a worker thread, then passes the result or error to a callback on the JavaFX
+     * application thread
+     * @param work the database call to make
+     * @param onSuccess called with the result
+     * @param onFailure called with the error if the work throws
+     * @param <T> type of the result
+     * @return a future completed on the worker thread with the result
+     */
+    public static <T> CompletableFuture<T> load(Callable<T> work, Consumer<T> onSuccess,
+                                                Consumer<Throwable> onFailure) {
+        CompletableFuture<T> future = supply(work);
+        future.whenCompleteAsync((result, error) -> {
+            if (error != null) {
+                onFailure.accept(unwrap(error));
+            } else {
+                onSuccess.accept(result);
+            }
+        }, FX_THREAD);
+        return future;
+    }
+
+    /**
+     * Strips the CompletionException wrapper CompletableFuture puts around errors
+     * @param error error passed to a completion stage
+     * @return the original error
+     */
+    public static Throwable unwrap(Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            return error.getCause();
+        }
+        return error;
+    }
+
+    /**
+     * Stops accepting new work and waits briefly for running work to finish
+     */
+    public static void shutdown() {
+        workers.shutdown();
+        try {
+            workers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,15 +1,22 @@
 package scheduling.Model;
 
 import helper.JDBC;
+import helper.QueryMetrics;
+import helper.StartupReport;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import scheduling.Main;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.*;
+import java.util.function.BiConsumer;
 
 /**
  * Class responsible for communication with the SQL database
@@ -17,6 +24,26 @@ import java.util.*;
  */
 public class DBModel {
 
+    /**
+     * Start and end times of every appointment, used for overlap checks
+     */
+    private static final AppointmentIntervalIndex overlapIndex = new AppointmentIntervalIndex();
+
+    /**
+     * Appointment counts by year, month and type, used for the totals report
+     */
+    private static final AppointmentCountCube countCube = new AppointmentCountCube();
+
+    /**
+     * Every appointment in columns sorted by start time, used for the appointment view and reports
+     */
+    private static final AppointmentStore appointmentStore = new AppointmentStore();
+
+    /**
+     * Pushes current and upcoming appointment notices, kept current by appointment writes
+     */
+    private static final ReminderScheduler reminders = new ReminderScheduler();
+
     /**
      * Attempts to login using given username and password.
      * @return a User class when successful
@@ -35,12 +62,14 @@ public class DBModel {
         logMessage.append(": ");
         if (!username.equals("") && !password.equals("")) {
             String sql = "SELECT User_ID, User_Name, Password FROM users WHERE User_Name = ?";
-            try {
-                PreparedStatement ps = JDBC.connection.prepareStatement(sql);
+            QueryMetrics.Timer timer = QueryMetrics.start("login");
+            try (Connection conn = JDBC.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql)) {
                 ps.setString(1, username);
                 ResultSet rs = ps.executeQuery();
                 String foundPw;
                 if (rs.next()) {
+                    timer.setRows(1);
                     foundPw = rs.getString("Password");
                     if (foundPw.equals("") || !foundPw.equals(password)) {
                         logMessage.append("Unsuccessful Login - User: ");
@@ -57,6 +86,7 @@ public class DBModel {
                         return new User(rs.getInt("User_ID"), rs.getString("User_Name"));
                     }
                 } else {
+                    timer.setRows(0);
                     logMessage.append("Unsuccessful Login - User: ");
                     logMessage.append(username);
                     logMessage.append(" - Username not found.");
@@ -71,6 +101,8 @@ public class DBModel {
                 logMessage.append("\n");
                 Logger.writeToActivityLog(logMessage.toString());
                 throw new Exception(dbErr + " " + e.getLocalizedMessage());
+            } finally {
+                timer.stop();
             }
         } else {
             logMessage.append("Unsuccessful Login - Blank username or password");
@@ -80,33 +112,30 @@ public class DBModel {
         }
     }
 
+    /**
+     * Customer columns joined with their division and country so a customer list loads in a single query
+     */
+    private static final String CUSTOMER_SELECT = "SELECT c.Customer_ID, c.Customer_Name, c.Address, " +
+            "c.Postal_Code, c.Phone, c.Last_Update, d.Division_ID, d.Division, co.Country_ID, co.Country " +
+            "FROM customers c JOIN first_level_divisions d ON c.Division_ID = d.Division_ID " +
+            "JOIN countries co ON d.Country_ID = co.Country_ID";
+
     /**
      * Pulls a list of all customers in the customers table
      * @return a list of customers
      */
     public static ObservableList<Customer> getAllCustomers() {
         ObservableList<Customer> customers = FXCollections.observableArrayList();
-        String sql = "SELECT Customer_ID, Customer_Name, Address, Postal_Code, Phone, Division_ID FROM customers";
-        try {
-            ResultSet rs = JDBC.connection.createStatement().executeQuery(sql);
-            while (rs.next()) {
-                int id = rs.getInt("Customer_ID");
-                String name = rs.getString("Customer_Name");
-                String address = rs.getString("Address");
-                String postal = rs.getString("Postal_Code");
-                String phone = rs.getString("Phone");
-                int divisionID = rs.getInt("Division_ID");
-                Division division = getDivision(divisionID);
-                if (division != null) {
-                    Country country = getCountry(division.getCountryID());
-                    if (country != null) {
-                        Customer customer = new Customer(id, name, address, postal, phone, division, country);
-                        customers.add(customer);
-                    }
-                }
-            }
+        QueryMetrics.Timer timer = QueryMetrics.start("getAllCustomers");
+        try (Connection conn = JDBC.getConnection();
+             Statement stmt = conn.createStatement()) {
+            ResultSet rs = stmt.executeQuery(CUSTOMER_SELECT);
+            readCustomers(rs, customers);
+            timer.setRows(customers.size());
         } catch (SQLException e) {
             System.out.println(e.getMessage());
+        } finally {
+            timer.stop();
         }
         return customers;
     }
@@ -118,79 +147,67 @@ public class DBModel {
      */
     public static List<Customer> getCustomersByCountry(Country country) {
         List<Customer> customers = new ArrayList<>();
-        List<Integer> divisions = getListOfDivisions(country);
-        StringBuilder divisionsSB = new StringBuilder("(");
-        for (int i = 0; i < divisions.size(); i++) {
-            divisionsSB.append(divisions.get(i));
-            if (i != divisions.size() - 1) {
-                divisionsSB.append(", ");
-            } else {
-                divisionsSB.append(")");
-            }
-        }
-        String sql = "SELECT Customer_ID, Customer_Name, Address, Postal_Code, Phone, Division_ID FROM customers WHERE " +
-                "Division_ID IN " + divisionsSB;
-        try {
-            ResultSet rs = JDBC.connection.createStatement().executeQuery(sql);
-            while (rs.next()) {
-                int id = rs.getInt("Customer_ID");
-                String name = rs.getString("Customer_Name");
-                String address = rs.getString("Address");
-                String postal = rs.getString("Postal_Code");
-                String phone = rs.getString("Phone");
-                int divisionID = rs.getInt("Division_ID");
-                Division division = getDivision(divisionID);
-                if (division != null) {
-                    Customer customer = new Customer(id, name, address, postal, phone, division, country);
-                    customers.add(customer);
-                }
-            }
+        String sql = CUSTOMER_SELECT + " WHERE co.Country_ID = ?";
+        QueryMetrics.Timer timer = QueryMetrics.start("getCustomersByCountry");
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, country.getId());
+            ResultSet rs = ps.executeQuery();
+            readCustomers(rs, customers);
+            timer.setRows(customers.size());
         } catch (SQLException e) {
             System.out.println(e.getMessage());
+        } finally {
+            timer.stop();
         }
         return customers;
     }
 
     /**
-     * Pulls a list of all divisions (by id) located in a country
-     * @return a list of Division_IDs (integers)
-     * @param country to filter Division_IDs from the first_level_divisions table
+     * Reads rows selected with CUSTOMER_SELECT into customers.  Each division and country is created once and
+     * shared by every customer that references it.
+     * @param rs result set positioned before the first row
+     * @param customers list to add the customers to
+     * @throws SQLException if a row can't be read
      */
-    private static List<Integer> getListOfDivisions(Country country) {
-        List<Integer> divisions = new ArrayList<>();
-        String sql = "SELECT Division_ID FROM first_level_divisions WHERE Country_ID = ?";
-        try {
-            PreparedStatement ps = JDBC.connection.prepareStatement(sql);
-            ps.setInt(1, country.getId());
-            ResultSet rs = ps.executeQuery();
-            while (rs.next()) {
-                divisions.add(rs.getInt("Division_ID"));
-            }
-        } catch (SQLException e) {
-            System.out.println(e.getMessage());
+    private static void readCustomers(ResultSet rs, List<Customer> customers) throws SQLException {
+        HashMap<Integer, Division> divisions = new HashMap<>();
+        HashMap<Integer, Country> countries = new HashMap<>();
+        while (rs.next()) {
+            customers.add(readCustomer(rs, divisions, countries));
         }
-        return divisions;
     }
 
     /**
-     * Gets full division data from provided Division_ID
-     * @return a completed Division class
-     * @param id Division_ID to pull remainder of division data
+     * Reads the current row selected with CUSTOMER_SELECT
+     * @param rs result set positioned on a row
+     * @param divisions divisions already read, added to when a new one is found
+     * @param countries countries already read, added to when a new one is found
+     * @return the customer
+     * @throws SQLException if the row can't be read
      */
-    private static Division getDivision(int id) {
-        String sql = "SELECT Division, Country_ID FROM first_level_divisions WHERE Division_ID = ?";
-        try { PreparedStatement ps = JDBC.connection.prepareStatement(sql);
-            ps.setInt(1, id);
-            ResultSet rs = ps.executeQuery();
-            if (rs.next()) {
-                String divisionName = rs.getString("Division");
-                int countryID = rs.getInt("Country_ID");
-                return new Division(id, divisionName, countryID);
-            }
-        } catch (SQLException e) {
-            System.out.println(e.getMessage());
+    private static Customer readCustomer(ResultSet rs, HashMap<Integer, Division> divisions,
+                                         HashMap<Integer, Country> countries) throws SQLException {
+        int id = rs.getInt("Customer_ID");
+        String name = rs.getString("Customer_Name");
+        String address = rs.getString("Address");
+        String postal = rs.getString("Postal_Code");
+        String phone = rs.getString("Phone");
+        int divisionID = rs.getInt("Division_ID");
+        int countryID = rs.getInt("Country_ID");
+        Division division = divisions.get(divisionID);
+        if (division == null) {
+            division = new Division(divisionID, rs.getString("Division"), countryID);
+            divisions.put(divisionID, division);
         }
-        return null;
+        Country country = countries.get(countryID);
+        if (country == null) {
+            country = new Country(countryID, rs.getString("Country"));
+            countries.put(countryID, country);
+        }
+        Customer customer = new Customer(id, name, address, postal, phone, division, country);
+        customer.setLastUpdateMillis(readUTCMillis(rs, "Last_Update"));
+        return customer;
     }
 
     /**
@@ -200,8 +217,11 @@ public class DBModel {
     public static HashMap<Integer, ObservableList<Division>> getAllDivisions() {
         HashMap<Integer, ObservableList<Division>> divisions = new HashMap<>();
         String sql = "SELECT Division_ID, Division, Country_ID FROM first_level_divisions";
-        try {
-            ResultSet rs = JDBC.connection.createStatement().executeQuery(sql);
+        QueryMetrics.Timer timer = QueryMetrics.start("getAllDivisions");
+        try (Connection conn = JDBC.getConnection();
+             Statement stmt = conn.createStatement()) {
+            ResultSet rs = stmt.executeQuery(sql);
+            int rows = 0;
             while (rs.next()) {
                 int divID = rs.getInt("Division_ID");
                 String div = rs.getString("Division");
@@ -215,34 +235,17 @@ public class DBModel {
                 } else {
                     countryDivs.add(division);
                 }
+                rows++;
             }
+            timer.setRows(rows);
         } catch (SQLException e) {
             System.out.println(e.getLocalizedMessage());
+        } finally {
+            timer.stop();
         }
         return divisions;
     }
 
-    /**
-     * Gets a country class based on a given id
-     * @return a Country
-     * @param id Country_ID from countries table
-     */
-    static Country getCountry(int id) {
-        String sql = "SELECT Country FROM countries WHERE Country_ID = ?";
-        try {
-            PreparedStatement ps = JDBC.connection.prepareStatement(sql);
-            ps.setInt(1, id);
-            ResultSet rs = ps.executeQuery();
-            if (rs.next()) {
-                String countryName = rs.getString("Country");
-                return new Country(id, countryName);
-            }
-        } catch (SQLException e) {
-            System.out.println(e.getMessage());
-        }
-        return null;
-    }
-
     /**
      * Pulls a list of all countries from the countries table
      * @return a list of countries
@@ -250,16 +253,21 @@ public class DBModel {
     public static ObservableList<Country> getAllCountries() {
         ObservableList<Country> countries = FXCollections.observableArrayList();
         String sql = "SELECT Country_ID, Country FROM countries";
-        try {
-            ResultSet rs = JDBC.connection.createStatement().executeQuery(sql);
+        QueryMetrics.Timer timer = QueryMetrics.start("getAllCountries");
+        try (Connection conn = JDBC.getConnection();
+             Statement stmt = conn.createStatement()) {
+            ResultSet rs = stmt.executeQuery(sql);
             while (rs.next()) {
                 int couID = rs.getInt("Country_ID");
                 String cou = rs.getString("Country");
                 Country country = new Country(couID, cou);
                 countries.add(country);
             }
+            timer.setRows(countries.size());
         } catch (SQLException e) {
             System.out.println(e.getLocalizedMessage());
+        } finally {
+            timer.stop();
         }
         return countries;
     }
@@ -272,43 +280,74 @@ public class DBModel {
     public static void addCustomer(Customer customer) throws Exception {
         String sql = "INSERT INTO customers (Customer_Name, Address, Postal_Code, Phone, Create_Date, Created_By, " +
                 "Last_Update, Last_Updated_By, Division_ID) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        PreparedStatement ps = JDBC.connection.prepareStatement(sql);
-        ps.setString(1, customer.getName());
-        ps.setString(2, customer.getAddress());
-        ps.setString(3, customer.getPostalCode());
-        ps.setString(4, customer.getPhone());
-        SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-        formatter.setTimeZone(TimeZone.getTimeZone("UTC"));
-        Date now = new Date();
-        ps.setString(5, formatter.format(now));
-        ps.setString(6, Main.getUser().getUsername());
-        ps.setString(7, formatter.format(now));
-        ps.setString(8, Main.getUser().getUsername());
-        ps.setInt(9, customer.getDivision().getId());
-        ps.executeUpdate();
+        QueryMetrics.Timer timer = QueryMetrics.start("addCustomer");
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, customer.getName());
+            ps.setString(2, customer.getAddress());
+            ps.setString(3, customer.getPostalCode());
+            ps.setString(4, customer.getPhone());
+            long now = nextLastUpdate(0);
+            ps.setObject(5, toUTC(now));
+            ps.setString(6, Main.getUser().getUsername());
+            ps.setObject(7, toUTC(now));
+            ps.setString(8, Main.getUser().getUsername());
+            ps.setInt(9, customer.getDivision().getId());
+            timer.setRows(ps.executeUpdate());
+            customer.setLastUpdateMillis(now);
+        } finally {
+            timer.stop();
+        }
     }
 
     /**
-     * Updates a customer to the customer table
+     * Updates a customer to the customer table if nobody has changed it since it was read.  The customer's
+     * Last_Update is the version checked, and is moved forward on success.
      * @param customer Customer class with all relevant table data
+     * @throws UpdateConflictException if the customer was changed or deleted by another user since it was read
      * @throws Exception for SQL error
      */
     public static void updateCustomer(Customer customer) throws Exception {
         String sql = "UPDATE customers SET Customer_Name = ?, Address = ?, Postal_Code = ?, Phone = ?, Last_Update = ?, " +
-                "Last_Updated_By = ?, Division_ID = ? WHERE Customer_ID = ?";
-        PreparedStatement ps = JDBC.connection.prepareStatement(sql);
-        ps.setString(1, customer.getName());
-        ps.setString(2, customer.getAddress());
-        ps.setString(3, customer.getPostalCode());
-        ps.setString(4, customer.getPhone());
-        SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-        formatter.setTimeZone(TimeZone.getTimeZone("UTC"));
-        Date now = new Date();
-        ps.setString(5, formatter.format(now));
-        ps.setString(6, Main.getUser().getUsername());
-        ps.setInt(7, customer.getDivision().getId());
-        ps.setInt(8, customer.getId());
-        ps.executeUpdate();
+                "Last_Updated_By = ?, Division_ID = ? WHERE Customer_ID = ? AND Last_Update <=> ?";
+        long lastUpdate = nextLastUpdate(customer.getLastUpdateMillis());
+        QueryMetrics.Timer timer = QueryMetrics.start("updateCustomer");
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, customer.getName());
+            ps.setString(2, customer.getAddress());
+            ps.setString(3, customer.getPostalCode());
+            ps.setString(4, customer.getPhone());
+            ps.setObject(5, toUTC(lastUpdate));
+            ps.setString(6, Main.getUser().getUsername());
+            ps.setInt(7, customer.getDivision().getId());
+            ps.setInt(8, customer.getId());
+            ps.setObject(9, toVersion(customer.getLastUpdateMillis()));
+            int updated = ps.executeUpdate();
+            timer.setRows(updated);
+            if (updated == 0) {
+                throw new UpdateConflictException(customer.getId(), getCustomer(conn, customer.getId()));
+            }
+        } finally {
+            timer.stop();
+        }
+        customer.setLastUpdateMillis(lastUpdate);
+    }
+
+    /**
+     * Pulls a single customer
+     * @param conn connection to query on
+     * @param id Customer_ID
+     * @return the customer, or null if there is no such customer
+     * @throws SQLException for SQL error
+     */
+    private static Customer getCustomer(Connection conn, int id) throws SQLException {
+        List<Customer> customers = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(CUSTOMER_SELECT + " WHERE c.Customer_ID = ?")) {
+            ps.setInt(1, id);
+            readCustomers(ps.executeQuery(), customers);
+        }
+        return customers.isEmpty() ? null : customers.get(0);
     }
 
     /**
@@ -317,69 +356,185 @@ public class DBModel {
      * @throws Exception for SQL error or if customer has existing appointments
      */
     public static void deleteCustomer(Customer customer) throws Exception {
-        if (getCountOfAppointments(customer) == 0) {
-            String sql = "DELETE FROM customers WHERE Customer_ID = ?";
-            PreparedStatement ps = JDBC.connection.prepareStatement(sql);
-            ps.setInt(1, customer.getId());
-            ps.executeUpdate();
-        } else {
-            throw new Exception("You must remove customer's appointments first.");
+        QueryMetrics.Timer timer = QueryMetrics.start("deleteCustomer");
+        try {
+            if (getCountOfAppointments(customer) == 0) {
+                timer.setRows(deleteWithTombstone("customers", "Customer_ID", customer.getId()));
+            } else {
+                timer.setRows(0);
+                throw new Exception("You must remove customer's appointments first.");
+            }
+        } finally {
+            timer.stop();
         }
     }
 
     /**
-     * Adds an appointment to the appointments table
+     * Locks a customer's appointments for the rest of the transaction and finds one that overlaps the given
+     * appointment.  This is the authoritative check; the in-memory index only catches overlaps early.  The locks
+     * cover the gaps between the customer's rows too, so another client can't insert an overlapping appointment for
+     * the same customer until this transaction ends.
+     */
+    private static final String OVERLAP_LOCK = "SELECT Appointment_ID FROM appointments WHERE Customer_ID = ? " +
+            "AND Start < ? AND End > ? AND Appointment_ID <> ? FOR UPDATE";
+
+    /**
+     * Rejects an appointment that overlaps another of the same customer's appointments in the database
+     * @param conn connection with a transaction open
+     * @param appt appointment being saved
+     * @throws AppointmentOverlapException if another appointment for the customer overlaps it
+     * @throws SQLException for SQL error
+     */
+    private static void lockCustomerOverlaps(Connection conn, Appointment appt)
+            throws AppointmentOverlapException, SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(OVERLAP_LOCK)) {
+            ps.setInt(1, appt.getCustomerID());
+            ps.setObject(2, toUTC(appt.getEndMillis()));
+            ps.setObject(3, toUTC(appt.getStartMillis()));
+            ps.setInt(4, appt.getId());
+            ResultSet rs = ps.executeQuery();
+            if (rs.next()) {
+                throw new AppointmentOverlapException(rs.getInt(1));
+            }
+        }
+    }
+
+    /**
+     * Adds an appointment to the appointments table, in a transaction that first checks the customer has no
+     * overlapping appointment
      * @param appt Appointment class with all relevant table data
+     * @return the added appointment with the Appointment_ID assigned by the database
+     * @throws AppointmentOverlapException if another appointment for the customer overlaps it
      * @throws Exception for SQL error
      */
-    public static void addAppointment(Appointment appt) throws Exception {
+    public static Appointment addAppointment(Appointment appt) throws Exception {
         String sql = "INSERT INTO appointments (Title, Description, Location, Type, Start, End, " +
                 "Create_Date, Created_By, Last_Update, Last_Updated_By, Customer_ID, User_ID, Contact_ID) VALUES " +
                 "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        PreparedStatement ps = JDBC.connection.prepareStatement(sql);
-        ps.setString(1, appt.getTitle());
-        ps.setString(2, appt.getDescription());
-        ps.setString(3, appt.getLocation());
-        ps.setString(4, appt.getType());
-        ps.setString(5, TimeFormatter.getTimeStringUTC(appt.getStart()));
-        ps.setString(6, TimeFormatter.getTimeStringUTC(appt.getEnd()));
-        Date now = new Date();
-        ps.setString(7, TimeFormatter.getTimeStringUTC(now));
-        ps.setString(8, Main.getUser().getUsername());
-        ps.setString(9, TimeFormatter.getTimeStringUTC(now));
-        ps.setString(10, Main.getUser().getUsername());
-        ps.setInt(11, appt.getCustomerID());
-        ps.setInt(12, appt.getUserID());
-        ps.setInt(13, appt.getContactID());
-        ps.executeUpdate();
+        QueryMetrics.Timer timer = QueryMetrics.start("addAppointment");
+        try (Connection conn = JDBC.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                lockCustomerOverlaps(conn, appt);
+                ps.setString(1, appt.getTitle());
+                ps.setString(2, appt.getDescription());
+                ps.setString(3, appt.getLocation());
+                ps.setString(4, appt.getType());
+                ps.setObject(5, toUTC(appt.getStartMillis()));
+                ps.setObject(6, toUTC(appt.getEndMillis()));
+                long now = nextLastUpdate(0);
+                ps.setObject(7, toUTC(now));
+                ps.setString(8, Main.getUser().getUsername());
+                ps.setObject(9, toUTC(now));
+                ps.setString(10, Main.getUser().getUsername());
+                ps.setInt(11, appt.getCustomerID());
+                ps.setInt(12, appt.getUserID());
+                ps.setInt(13, appt.getContactID());
+                timer.setRows(ps.executeUpdate());
+                ResultSet keys = ps.getGeneratedKeys();
+                if (keys.next()) {
+                    appt = appt.withId(keys.getInt(1));
+                }
+                appt = appt.withLastUpdate(now);
+                conn.commit();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            }
+        } finally {
+            timer.stop();
+        }
+        indexAppointment(appt);
+        return appt;
     }
 
     /**
-     * Updates an appointment to the appointments table
+     * Updates an appointment to the appointments table if nobody has changed it since it was read.  The
+     * appointment's Last_Update is the version checked, so concurrent editors never overwrite each other silently.
+     * Runs in a transaction that first checks the customer has no other overlapping appointment.
      * @param appt Appointment class with all relevant table data
+     * @return the updated appointment with its new Last_Update
+     * @throws UpdateConflictException if the appointment was changed or deleted by another user since it was read
+     * @throws AppointmentOverlapException if another appointment for the customer overlaps it
      * @throws Exception for SQL error
      */
-    public static void updateAppointment(Appointment appt) throws Exception {
+    public static Appointment updateAppointment(Appointment appt) throws Exception {
         String sql = "UPDATE appointments SET Title = ?, Description = ?, Location = ?, Type = ?, Start = ?, " +
                 "End = ?, Last_Update = ?, Last_Updated_By = ?, Customer_ID = ?, User_ID = ?, Contact_ID = ? " +
-                "WHERE Appointment_ID = ?";
-        PreparedStatement ps = JDBC.connection.prepareStatement(sql);
-        ps.setString(1, appt.getTitle());
-        ps.setString(2, appt.getDescription());
-        ps.setString(3, appt.getLocation());
-        ps.setString(4, appt.getType());
-        SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-        formatter.setTimeZone(TimeZone.getTimeZone("UTC"));
-        ps.setString(5, formatter.format(appt.getStart()));
-        ps.setString(6, formatter.format(appt.getEnd()));
-        Date now = new Date();
-        ps.setString(7, formatter.format(now));
-        ps.setString(8, Main.getUser().getUsername());
-        ps.setInt(9, appt.getCustomerID());
-        ps.setInt(10, appt.getUserID());
-        ps.setInt(11, appt.getContactID());
-        ps.setInt(12, appt.getId());
-        ps.executeUpdate();
+                "WHERE Appointment_ID = ? AND Last_Update <=> ?";
+        long lastUpdate = nextLastUpdate(appt.getLastUpdateMillis());
+        UpdateConflictException conflict = null;
+        QueryMetrics.Timer timer = QueryMetrics.start("updateAppointment");
+        try (Connection conn = JDBC.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                lockCustomerOverlaps(conn, appt);
+                ps.setString(1, appt.getTitle());
+                ps.setString(2, appt.getDescription());
+                ps.setString(3, appt.getLocation());
+                ps.setString(4, appt.getType());
+                ps.setObject(5, toUTC(appt.getStartMillis()));
+                ps.setObject(6, toUTC(appt.getEndMillis()));
+                ps.setObject(7, toUTC(lastUpdate));
+                ps.setString(8, Main.getUser().getUsername());
+                ps.setInt(9, appt.getCustomerID());
+                ps.setInt(10, appt.getUserID());
+                ps.setInt(11, appt.getContactID());
+                ps.setInt(12, appt.getId());
+                ps.setObject(13, toVersion(appt.getLastUpdateMillis()));
+                int updated = ps.executeUpdate();
+                timer.setRows(updated);
+                if (updated == 0) {
+                    conflict = new UpdateConflictException(appt.getId(), getAppointment(conn, appt.getId()));
+                    conn.rollback();
+                } else {
+                    conn.commit();
+                }
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            }
+        } finally {
+            timer.stop();
+        }
+        if (conflict != null) {
+            if (conflict.isDeleted()) {
+                unindexAppointment(appt.getId());
+            } else {
+                indexAppointment(conflict.getLatestAppointment());
+            }
+            throw conflict;
+        }
+        appt = appt.withLastUpdate(lastUpdate);
+        indexAppointment(appt);
+        return appt;
+    }
+
+    /**
+     * Pulls a single appointment
+     * @param conn connection to query on
+     * @param id Appointment_ID
+     * @return the appointment, or null if there is no such appointment
+     * @throws SQLException for SQL error
+     */
+    private static Appointment getAppointment(Connection conn, int id) throws SQLException {
+        List<Appointment> appointments = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(APPOINTMENT_SELECT + " WHERE a.Appointment_ID = ?")) {
+            ps.setInt(1, id);
+            readAppointments(ps.executeQuery(), appointments);
+        }
+        return appointments.isEmpty() ? null : appointments.get(0);
+    }
+
+    /**
+     * Picks the Last_Update to write.  Whole seconds so the stored value reads back exactly, and always later than
+     * the previous value so two saves within a second still change the version.
+     * @param previous Last_Update being replaced in epoch milliseconds, or 0 for a new row
+     * @return the new Last_Update in epoch milliseconds
+     */
+    private static long nextLastUpdate(long previous) {
+        long now = System.currentTimeMillis() / 1000 * 1000;
+        return Math.max(now, previous + 1000);
     }
 
     /**
@@ -388,65 +543,260 @@ public class DBModel {
      * @throws Exception for SQL error
      */
     public static void deleteAppointment(Appointment appointment) throws Exception {
-        String sql = "DELETE FROM appointments WHERE Appointment_ID = ?";
-        PreparedStatement ps = JDBC.connection.prepareStatement(sql);
-        ps.setInt(1, appointment.getId());
-        ps.executeUpdate();
+        QueryMetrics.Timer timer = QueryMetrics.start("deleteAppointment");
+        try {
+            timer.setRows(deleteWithTombstone("appointments", "Appointment_ID", appointment.getId()));
+        } finally {
+            timer.stop();
+        }
+        unindexAppointment(appointment.getId());
+    }
+
+    /**
+     * Records a deleted row, or moves its deletion time forward if the id was deleted before
+     */
+    private static final String TOMBSTONE_INSERT = "INSERT INTO deleted_rows (Table_Name, Row_ID, Deleted_At) " +
+            "VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE Deleted_At = VALUES(Deleted_At)";
+
+    /**
+     * Tombstones recorded at or after a time, read through the Deleted_At index
+     */
+    private static final String DELETED_ROWS_SELECT = "SELECT Table_Name, Row_ID, Deleted_At FROM deleted_rows " +
+            "WHERE Deleted_At >= ?";
+
+    /**
+     * Deletes a row and records its deletion in deleted_rows in the same transaction, so other clients syncing
+     * changes find out the row is gone
+     * @param table table to delete from
+     * @param idColumn primary key column
+     * @param id primary key of the row
+     * @throws SQLException for SQL error
+     */
+    private static int deleteWithTombstone(String table, String idColumn, int id) throws SQLException {
+        try (Connection conn = JDBC.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement delete = conn.prepareStatement("DELETE FROM " + table + " WHERE " +
+                    idColumn + " = ?");
+                 PreparedStatement tombstone = conn.prepareStatement(TOMBSTONE_INSERT)) {
+                delete.setInt(1, id);
+                int deleted = delete.executeUpdate();
+                tombstone.setString(1, table);
+                tombstone.setInt(2, id);
+                tombstone.setObject(3, LocalDateTime.now(ZoneOffset.UTC));
+                tombstone.executeUpdate();
+                conn.commit();
+                return deleted;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Pulls the appointments and customers changed, and the ids of those deleted, at or after a time.  Changed
+     * and deleted appointments are applied to the in-memory appointment store, overlap index, count cube and
+     * reminders before returning.
+     * @param since earliest Last_Update or deletion time to include, in epoch milliseconds
+     * @return the changes
+     * @throws SQLException for SQL error
+     */
+    public static SyncChanges getChangesSince(long since) throws SQLException {
+        QueryMetrics.Timer timer = QueryMetrics.start("getChangesSince");
+        List<Appointment> appointments = new ArrayList<>();
+        List<Customer> customers = new ArrayList<>();
+        Map<Integer, Long> deletedAppointments = new HashMap<>();
+        Map<Integer, Long> deletedCustomers = new HashMap<>();
+        LocalDateTime from = toUTC(since);
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement apptPs = conn.prepareStatement(APPOINTMENT_SELECT + " WHERE a.Last_Update >= ?");
+             PreparedStatement customerPs = conn.prepareStatement(CUSTOMER_SELECT + " WHERE c.Last_Update >= ?");
+             PreparedStatement deletedPs = conn.prepareStatement(DELETED_ROWS_SELECT)) {
+            apptPs.setObject(1, from);
+            readAppointments(apptPs.executeQuery(), appointments);
+            customerPs.setObject(1, from);
+            readCustomers(customerPs.executeQuery(), customers);
+            deletedPs.setObject(1, from);
+            ResultSet rs = deletedPs.executeQuery();
+            while (rs.next()) {
+                String table = rs.getString("Table_Name");
+                if (table.equals("appointments")) {
+                    deletedAppointments.put(rs.getInt("Row_ID"), readUTCMillis(rs, "Deleted_At"));
+                } else if (table.equals("customers")) {
+                    deletedCustomers.put(rs.getInt("Row_ID"), readUTCMillis(rs, "Deleted_At"));
+                }
+            }
+            timer.setRows(appointments.size() + customers.size() + deletedAppointments.size() +
+                    deletedCustomers.size());
+        } finally {
+            timer.stop();
+        }
+        for (Appointment appt : appointments) {
+            deletedAppointments.remove(appt.getId());
+        }
+        for (Customer customer : customers) {
+            deletedCustomers.remove(customer.getId());
+        }
+        applyAppointmentChanges(appointments, deletedAppointments.keySet());
+        return new SyncChanges(appointments, customers, deletedAppointments, deletedCustomers);
+    }
+
+    /**
+     * Applies appointments changed or deleted by another client to the in-memory appointment structures.  Does
+     * nothing before they are loaded, since loading reads the latest rows anyway.
+     * @param changed appointments added or updated
+     * @param deleted Appointment_IDs deleted
+     */
+    private static synchronized void applyAppointmentChanges(Collection<Appointment> changed,
+                                                             Collection<Integer> deleted) {
+        if (!appointmentStore.isLoaded()) {
+            return;
+        }
+        for (Appointment appt : changed) {
+            indexAppointment(appt);
+        }
+        for (int id : deleted) {
+            unindexAppointment(id);
+        }
+    }
+
+    /**
+     * Adds or replaces an appointment in the appointment store, overlap index, count cube and reminders.  Holds
+     * the same lock as loading so a reload can't interleave with the four updates.
+     * @param appt appointment to add
+     */
+    private static synchronized void indexAppointment(Appointment appt) {
+        overlapIndex.put(appt.getId(), appt.getStartMillis(), appt.getEndMillis());
+        countCube.put(appt.getId(), appt.getType(), appt.getStartMillis());
+        appointmentStore.put(appt);
+        reminders.put(appt);
+    }
+
+    /**
+     * Removes an appointment from the appointment store, overlap index, count cube and reminders, holding the
+     * same lock as loading
+     * @param id Appointment_ID
+     */
+    private static synchronized void unindexAppointment(int id) {
+        overlapIndex.remove(id);
+        countCube.remove(id);
+        appointmentStore.remove(id);
+        reminders.remove(id);
     }
 
+    /**
+     * Appointment columns joined with their contact so contacts resolve in the same query as the appointments
+     */
+    private static final String APPOINTMENT_SELECT = "SELECT a.Appointment_ID, a.Title, a.Description, " +
+            "a.Location, a.Type, a.Start, a.End, a.Last_Update, a.Customer_ID, a.User_ID, c.Contact_ID, " +
+            "c.Contact_Name, c.Email FROM appointments a JOIN contacts c ON a.Contact_ID = c.Contact_ID";
+
     /**
      * Pulls a list of all appointments in the appointments table
      * @return List of appointments
      */
     public static ObservableList<Appointment> getAllAppointments() {
         ObservableList<Appointment> appointments = FXCollections.observableArrayList();
-        String sql = "SELECT Appointment_ID, Title, Description, Location, Type, Start, End, Customer_ID, " +
-                "User_ID, Contact_ID FROM appointments";
-        try {
-            ResultSet rs = JDBC.connection.createStatement().executeQuery(sql);
-            while (rs.next()) {
-                int id = rs.getInt("Appointment_ID");
-                String title = rs.getString("Title");
-                String description = rs.getString("Description");
-                String location = rs.getString("Location");
-                String type = rs.getString("Type");
-                SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-                formatter.setTimeZone(TimeZone.getTimeZone("UTC"));
-                Date start = formatter.parse(rs.getString("Start"));
-                Date end = formatter.parse(rs.getString("End"));
-                int customerID = rs.getInt("Customer_ID");
-                int userID = rs.getInt("User_ID");
-                int contactID = rs.getInt("Contact_ID");
-                Contact contact = getContact(contactID);
-                if (contact != null) {
-                    Appointment appointment = new Appointment(id, title, description, location, type, start, end, customerID, contact, userID);
-                    appointments.add(appointment);
-                }
-            }
-        } catch (SQLException | ParseException e) {
+        QueryMetrics.Timer timer = QueryMetrics.start("getAllAppointments");
+        try (Connection conn = JDBC.getConnection();
+             Statement stmt = conn.createStatement()) {
+            ResultSet rs = stmt.executeQuery(APPOINTMENT_SELECT);
+            readAppointments(rs, appointments);
+            timer.setRows(appointments.size());
+        } catch (SQLException e) {
             System.out.println(e.getMessage());
+        } finally {
+            timer.stop();
         }
         return appointments;
     }
 
     /**
-     * Determines if an appointments start date and end date conflicts with
-     * any other appointments in the appointments table
-     * @return true if there's an overlap, and false if not
-     * @param startDate Appointment start time in format yyyy-MM-dd HH:mm:ss
-     * @param endDate Appointment end time in format yyyy-MM-dd HH:mm:ss
+     * Pulls the appointments starting within a window of time, oldest first, with a binary search of the in-memory
+     * appointment store.  The store holds the whole table and replaces querying the database for each window, so
+     * paging through weeks and months never goes to the database once the store is loaded.  Memory grows with the
+     * table rather than the window shown, which the overlap index, count cube and reminders need anyway.
+     * @return a list of appointments
+     * @param windowStart earliest start time to include
+     * @param windowEnd start times must be before this
+     * @throws SQLException if the store isn't loaded yet and can't be
      */
-    public static boolean hasOverlapAppointments(String startDate, String endDate) {
-        String sql = "SELECT COUNT(*) as total FROM appointments WHERE End > '" + startDate + "' AND Start < '" + endDate + "'";
+    public static ObservableList<Appointment> getAppointmentsInRange(Date windowStart, Date windowEnd)
+            throws SQLException {
+        QueryMetrics.Timer timer = QueryMetrics.start("getAppointmentsInRange");
         try {
-            ResultSet rs = JDBC.connection.createStatement().executeQuery(sql);
-            if (rs.next()) {
-                int count = rs.getInt("total");
-                return count > 0;
-            } else {
-                return false;
-            }
+            loadAppointmentIndexes();
+            ObservableList<Appointment> appointments = FXCollections.observableArrayList(appointmentStore.find(
+                    windowStart.getTime(), windowEnd.getTime(), AppointmentStore.ANY, AppointmentStore.ANY,
+                    AppointmentStore.ANY));
+            timer.setRows(appointments.size());
+            return appointments;
+        } finally {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Finds the appointments whose times conflict with a start date and end date.  Answered from an in-memory
+     * index that is loaded on first use and kept current by addAppointment, updateAppointment and
+     * deleteAppointment.
+     * @return Appointment_IDs of overlapping appointments, empty if there are none
+     * @param start Appointment start time
+     * @param end Appointment end time
+     * @throws SQLException if the appointments can't be loaded
+     */
+    public static List<Integer> getOverlappingAppointments(Date start, Date end) throws SQLException {
+        QueryMetrics.Timer timer = QueryMetrics.start("getOverlappingAppointments");
+        try {
+            loadAppointmentIndexes();
+            List<Integer> overlaps = overlapIndex.findOverlaps(start.getTime(), end.getTime());
+            timer.setRows(overlaps.size());
+            return overlaps;
+        } finally {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Fills the appointment store, overlap index and count cube from a single pass over the appointments table if
+     * they haven't been filled yet
+     * @throws SQLException if the appointments can't be read, in which case the load is retried on next use
+     */
+    private static synchronized void loadAppointmentIndexes() throws SQLException {
+        if (appointmentStore.isLoaded() && overlapIndex.isLoaded() && countCube.isLoaded()) {
+            return;
+        }
+        List<Appointment> appointments = new ArrayList<>();
+        QueryMetrics.Timer timer = QueryMetrics.start("loadAppointmentIndexes");
+        try (Connection conn = JDBC.getConnection();
+             Statement stmt = conn.createStatement()) {
+            ResultSet rs = stmt.executeQuery(APPOINTMENT_SELECT);
+            readAppointments(rs, appointments);
+            timer.setRows(appointments.size());
+        } finally {
+            timer.stop();
+        }
+        overlapIndex.clear();
+        countCube.clear();
+        for (Appointment appt : appointments) {
+            overlapIndex.put(appt.getId(), appt.getStartMillis(), appt.getEndMillis());
+            countCube.put(appt.getId(), appt.getType(), appt.getStartMillis());
+        }
+        appointmentStore.load(appointments);
+        reminders.load(appointments);
+        overlapIndex.setLoaded();
+        countCube.setLoaded();
+    }
 
+    /**
+     * Loads the appointment store, overlap index and count cube for a read that shows empty results when the
+     * database can't be reached
+     * @return true if they are loaded
+     */
+    private static boolean appointmentIndexesLoaded() {
+        try {
+            loadAppointmentIndexes();
+            return true;
         } catch (SQLException e) {
             System.out.println(e.getMessage());
             return false;
@@ -454,173 +804,138 @@ public class DBModel {
     }
 
     /**
-     * Pulls a list of all appointments associated with a specific contact
-     * @return a list of appointments
+     * Starts pushing the appointment in progress and the appointments starting within 15 minutes to a listener.
+     * The listener is called right away and again whenever either changes, on a background thread.
+     * @param listener receives the appointment in progress (or null) and the appointments starting soon
+     * @throws SQLException if the appointments can't be loaded, in which case the listener isn't registered
+     */
+    public static void watchReminders(BiConsumer<Appointment, List<Appointment>> listener) throws SQLException {
+        loadAppointmentIndexes();
+        reminders.setListener(listener);
+    }
+
+    /**
+     * Loads the appointment store, overlap index and count cube ahead of first use
+     * @throws SQLException if the appointments can't be read
+     */
+    public static void preloadAppointments() throws SQLException {
+        loadAppointmentIndexes();
+    }
+
+    /**
+     * Drops the in-memory appointment store, overlap index and count cube so they are rebuilt from the database on
+     * next use, and stops reminders until they are watched again.  Called on logout.
+     */
+    public static synchronized void invalidateAppointmentIndexes() {
+        overlapIndex.clear();
+        countCube.clear();
+        appointmentStore.clear();
+        reminders.clear();
+    }
+
+    /**
+     * Pulls a list of all appointments associated with a specific contact from the in-memory appointment store
+     * @return a list of appointments ordered by start time
      * @param contact Contact class contained in appointments
      */
     public static ObservableList<Appointment> getAppointmentsForContact(Contact contact) {
-        ObservableList<Appointment> appointments = FXCollections.observableArrayList();
-        String sql = "SELECT Appointment_ID, Title, Description, Location, Type, Start, End, Customer_ID, " +
-                "User_ID FROM appointments WHERE Contact_ID = ?";
+        QueryMetrics.Timer timer = QueryMetrics.start("getAppointmentsForContact");
         try {
-            PreparedStatement ps = JDBC.connection.prepareStatement(sql);
-            ps.setInt(1, contact.getId());
-            ResultSet rs = ps.executeQuery();
-            while (rs.next()) {
-                int id = rs.getInt("Appointment_ID");
-                String title = rs.getString("Title");
-                String description = rs.getString("Description");
-                String location = rs.getString("Location");
-                String type = rs.getString("Type");
-                SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-                formatter.setTimeZone(TimeZone.getTimeZone("UTC"));
-                Date start = formatter.parse(rs.getString("Start"));
-                Date end = formatter.parse(rs.getString("End"));
-                int customerID = rs.getInt("Customer_ID");
-                int userID = rs.getInt("User_ID");
-                Appointment appointment = new Appointment(id, title, description, location, type, start, end, customerID, contact, userID);
-                appointments.add(appointment);
+            if (!appointmentIndexesLoaded()) {
+                return FXCollections.observableArrayList();
             }
-        } catch (SQLException | ParseException e) {
-            System.out.println(e.getMessage());
+            ObservableList<Appointment> appointments = FXCollections.observableArrayList(appointmentStore.find(
+                    Long.MIN_VALUE, Long.MAX_VALUE, contact.getId(), AppointmentStore.ANY, AppointmentStore.ANY));
+            timer.setRows(appointments.size());
+            return appointments;
+        } finally {
+            timer.stop();
         }
-        return appointments;
     }
 
     /**
-     * Pulls a list of all appointments associated with a specific customer
-     * @return a list of appointments
+     * Pulls a list of all appointments associated with a specific customer from the in-memory appointment store
+     * @return a list of appointments ordered by start time
      * @param customer Customer class contained in appointments
      */
     public static List<Appointment> getAppointmentsForCustomer(Customer customer) {
-        List<Appointment> appointments = new ArrayList<>();
-        String sql = "SELECT Appointment_ID, Title, Description, Location, Type, Start, End, Contact_ID, " +
-                "User_ID FROM appointments WHERE Customer_ID = ?";
+        QueryMetrics.Timer timer = QueryMetrics.start("getAppointmentsForCustomer");
         try {
-            PreparedStatement ps = JDBC.connection.prepareStatement(sql);
-            ps.setInt(1, customer.getId());
-            ResultSet rs = ps.executeQuery();
-            while (rs.next()) {
-                int id = rs.getInt("Appointment_ID");
-                String title = rs.getString("Title");
-                String description = rs.getString("Description");
-                String location = rs.getString("Location");
-                String type = rs.getString("Type");
-                SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-                formatter.setTimeZone(TimeZone.getTimeZone("UTC"));
-                Date start = formatter.parse(rs.getString("Start"));
-                Date end = formatter.parse(rs.getString("End"));
-                int contactID = rs.getInt("Contact_ID");
-                Contact contact = getContact(contactID);
-                int userID = rs.getInt("User_ID");
-                if (contact != null) {
-                    Appointment appointment = new Appointment(id, title, description, location, type, start, end, customer.getId(), contact, userID);
-                    appointments.add(appointment);
-                }
+            if (!appointmentIndexesLoaded()) {
+                return new ArrayList<>();
             }
-        } catch (SQLException | ParseException e) {
-            System.out.println(e.getMessage());
+            List<Appointment> appointments = appointmentStore.find(Long.MIN_VALUE, Long.MAX_VALUE,
+                    AppointmentStore.ANY, customer.getId(), AppointmentStore.ANY);
+            timer.setRows(appointments.size());
+            return appointments;
+        } finally {
+            timer.stop();
         }
-        return appointments;
     }
 
     /**
-     * Attempts to get an appointments in progress
-     * @return an appointment if one is in progress, null if not
+     * Reads rows selected with APPOINTMENT_SELECT into appointments.  Each contact is created once and shared by
+     * every appointment that references it.
+     * @param rs result set positioned before the first row
+     * @param appointments list to add the appointments to
+     * @throws SQLException if a row can't be read
      */
-    public static Appointment getCurrentAppointment() {
-        String now = TimeFormatter.getTimeStringUTC(new Date());
-        String sql = "SELECT Appointment_ID, Title, Description, Location, Type, Start, End, Customer_ID, " +
-                "User_ID, Contact_ID FROM appointments WHERE Start <= '" + now + "' AND End > '" + now + "'";
-        try {
-            ResultSet rs = JDBC.connection.createStatement().executeQuery(sql);
-            if (rs.next()) {
-                int id = rs.getInt("Appointment_ID");
-                String title = rs.getString("Title");
-                String description = rs.getString("Description");
-                String location = rs.getString("Location");
-                String type = rs.getString("Type");
-                SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-                formatter.setTimeZone(TimeZone.getTimeZone("UTC"));
-                Date start = formatter.parse(rs.getString("Start"));
-                Date end = formatter.parse(rs.getString("End"));
-                int customerID = rs.getInt("Customer_ID");
-                int userID = rs.getInt("User_ID");
-                int contactID = rs.getInt("Contact_ID");
-                Contact contact = getContact(contactID);
-                if (contact != null) {
-                    return new Appointment(id, title, description, location, type, start, end, customerID, contact, userID);
-                } else {
-                    return null;
-                }
-            } else {
-                return null;
+    private static void readAppointments(ResultSet rs, List<Appointment> appointments) throws SQLException {
+        HashMap<Integer, Contact> contacts = new HashMap<>();
+        while (rs.next()) {
+            int id = rs.getInt("Appointment_ID");
+            String title = rs.getString("Title");
+            String description = rs.getString("Description");
+            String location = rs.getString("Location");
+            String type = rs.getString("Type");
+            long start = readUTCMillis(rs, "Start");
+            long end = readUTCMillis(rs, "End");
+            int customerID = rs.getInt("Customer_ID");
+            int userID = rs.getInt("User_ID");
+            int contactID = rs.getInt("Contact_ID");
+            Contact contact = contacts.get(contactID);
+            if (contact == null) {
+                contact = new Contact(contactID, rs.getString("Contact_Name"), rs.getString("Email"));
+                contacts.put(contactID, contact);
             }
-        } catch (SQLException | ParseException e) {
-            System.out.println(e.getMessage());
-            return null;
+            appointments.add(new Appointment(id, title, description, location, type, start, end, customerID,
+                    contact, userID, readUTCMillis(rs, "Last_Update")));
         }
     }
 
     /**
-     * Pulls a list of appointments starting within 15 minutes
-     * @return a list of appointments
+     * Converts a time to the UTC wall-clock time the database stores, for binding with setObject
+     * @param epochMillis time to convert
+     * @return the time as a UTC LocalDateTime
      */
-    public static List<Appointment> getSoonAppointments() {
-        List<Appointment> appointments = new ArrayList<>();
-        Date now = new Date();
-        Date soon = new Date(now.getTime() + (15 * 60 * 1000));
-        String nowString = TimeFormatter.getTimeStringUTC(now);
-        String soonString = TimeFormatter.getTimeStringUTC(soon);
-        String sql = "SELECT Appointment_ID, Title, Description, Location, Type, Start, End, Customer_ID, " +
-                "User_ID, Contact_ID FROM appointments WHERE Start <= '" + soonString + "' AND Start > '" + nowString + "'";
-        try {
-            ResultSet rs = JDBC.connection.createStatement().executeQuery(sql);
-            while (rs.next()) {
-                int id = rs.getInt("Appointment_ID");
-                String title = rs.getString("Title");
-                String description = rs.getString("Description");
-                String location = rs.getString("Location");
-                String type = rs.getString("Type");
-                SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-                formatter.setTimeZone(TimeZone.getTimeZone("UTC"));
-                Date start = formatter.parse(rs.getString("Start"));
-                Date end = formatter.parse(rs.getString("End"));
-                int customerID = rs.getInt("Customer_ID");
-                int userID = rs.getInt("User_ID");
-                int contactID = rs.getInt("Contact_ID");
-                Contact contact = getContact(contactID);
-                if (contact != null) {
-                    Appointment appointment = new Appointment(id, title, description, location, type, start, end, customerID, contact, userID);
-                    appointments.add(appointment);
-                }
-            }
-        } catch (SQLException | ParseException e) {
-            System.out.println(e.getMessage());
-        }
-        return appointments;
+    private static LocalDateTime toUTC(long epochMillis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMillis, 1000),
+                Math.floorMod(epochMillis, 1000) * 1_000_000, ZoneOffset.UTC);
     }
 
     /**
-     * Gets a contact based on a Contact_ID from the contacts table
-     * @return a list of appointments
-     * @param id Contact_ID to pull remainder of contact data
+     * Converts a Last_Update to the value the update statements compare it against with <=>
+     * @param lastUpdateMillis Last_Update in epoch milliseconds, or 0 if the row had none
+     * @return the time as a UTC LocalDateTime, or null so a row with a NULL Last_Update still matches
      */
-    static Contact getContact(int id) {
-        String sql = "SELECT Contact_Name, Email FROM contacts WHERE Contact_ID = ?";
-        try {
-            PreparedStatement ps = JDBC.connection.prepareStatement(sql);
-            ps.setInt(1, id);
-            ResultSet rs = ps.executeQuery();
-            if (rs.next()) {
-                String name = rs.getString("Contact_Name");
-                String email = rs.getString("Email");
-                return new Contact(id, name, email);
-            }
-        } catch (SQLException e) {
-            System.out.println(e.getMessage());
+    private static LocalDateTime toVersion(long lastUpdateMillis) {
+        return lastUpdateMillis == 0 ? null : toUTC(lastUpdateMillis);
+    }
+
+    /**
+     * Reads a column holding a UTC time without going through a string.  DATETIME columns come back as stored;
+     * TIMESTAMP columns such as Last_Update come back in the session time zone, which JDBC sets to UTC.
+     * @param rs result set positioned on a row
+     * @param column column to read
+     * @return the time in epoch milliseconds, or 0 if the column is NULL
+     * @throws SQLException if the column can't be read
+     */
+    private static long readUTCMillis(ResultSet rs, String column) throws SQLException {
+        LocalDateTime time = rs.getObject(column, LocalDateTime.class);
+        if (time == null) {
+            return 0;
         }
-        return null;
+        return time.toEpochSecond(ZoneOffset.UTC) * 1000 + time.getNano() / 1_000_000;
     }
 
     /**
@@ -630,16 +945,21 @@ public class DBModel {
     public static ObservableList<Contact> getAllContacts() {
         ObservableList<Contact> contacts = FXCollections.observableArrayList();
         String sql = "SELECT Contact_ID, Contact_Name, Email FROM contacts";
-        try {
-            ResultSet rs = JDBC.connection.createStatement().executeQuery(sql);
+        QueryMetrics.Timer timer = QueryMetrics.start("getAllContacts");
+        try (Connection conn = JDBC.getConnection();
+             Statement stmt = conn.createStatement()) {
+            ResultSet rs = stmt.executeQuery(sql);
             while (rs.next()) {
                 int id = rs.getInt("Contact_ID");
                 String name = rs.getString("Contact_Name");
                 String email = rs.getString("Email");
                 contacts.add(new Contact(id, name, email));
             }
+            timer.setRows(contacts.size());
         } catch (SQLException e) {
             return contacts;
+        } finally {
+            timer.stop();
         }
         return contacts;
     }
@@ -649,17 +969,10 @@ public class DBModel {
      * @return a list appointment types
      */
     public static ObservableList<String> getAllApptTypes() {
-        ObservableList<String> types = FXCollections.observableArrayList();
-        String sql = "SELECT DISTINCT Type FROM appointments";
-        try {
-            ResultSet rs = JDBC.connection.createStatement().executeQuery(sql);
-            while (rs.next()) {
-                types.add(rs.getString("Type"));
-            }
-        } catch (SQLException e) {
-            return types;
+        if (!appointmentIndexesLoaded()) {
+            return FXCollections.observableArrayList();
         }
-        return types;
+        return FXCollections.observableArrayList(countCube.getTypes());
     }
 
     /**
@@ -667,17 +980,10 @@ public class DBModel {
      * @return a list of years
      */
     public static ObservableList<Integer> getAllApptYears() {
-        ObservableList<Integer> years = FXCollections.observableArrayList();
-        String sql = "SELECT DISTINCT YEAR(Start) AS Year FROM appointments";
-        try {
-            ResultSet rs = JDBC.connection.createStatement().executeQuery(sql);
-            while (rs.next()) {
-                years.add(rs.getInt("Year"));
-            }
-        } catch (SQLException e) {
-            return years;
+        if (!appointmentIndexesLoaded()) {
+            return FXCollections.observableArrayList();
         }
-        return years;
+        return FXCollections.observableArrayList(countCube.getYears());
     }
 
     /**
@@ -692,22 +998,18 @@ public class DBModel {
         Calendar cal = Calendar.getInstance();
         try {
             cal.setTime(monthTextFormat.parse(month));
-            SimpleDateFormat monthNumberFormat = new SimpleDateFormat("M");
-            int monthNumber = Integer.parseInt(monthNumberFormat.format(cal.getTime()));
-            String sql = "SELECT COUNT(*) AS Total FROM appointments WHERE Type = ? AND YEAR(Start) = ?" +
-                    " AND MONTH(Start) = ?";
-            PreparedStatement ps = JDBC.connection.prepareStatement(sql);
-            ps.setString(1, type);
-            ps.setInt(2, year);
-            ps.setInt(3, monthNumber);
-            ResultSet rs = ps.executeQuery();
-            if (rs.next()) {
-                return rs.getInt("Total");
-            } else {
+        } catch (ParseException e) {
+            return 0;
+        }
+        QueryMetrics.Timer timer = QueryMetrics.start("getCountOfAppointments");
+        try {
+            if (!appointmentIndexesLoaded()) {
                 return 0;
             }
-        } catch (SQLException | ParseException e) {
-            return 0;
+            timer.setRows(1);
+            return countCube.getCount(year, cal.get(Calendar.MONTH) + 1, type);
+        } finally {
+            timer.stop();
         }
     }
 
@@ -718,30 +1020,105 @@ public class DBModel {
     public static ObservableList<User> getAllUsers() {
         ObservableList<User> users = FXCollections.observableArrayList();
         String sql = "SELECT User_ID, User_Name FROM users";
-        try {
-            ResultSet rs = JDBC.connection.createStatement().executeQuery(sql);
+        QueryMetrics.Timer timer = QueryMetrics.start("getAllUsers");
+        try (Connection conn = JDBC.getConnection();
+             Statement stmt = conn.createStatement()) {
+            ResultSet rs = stmt.executeQuery(sql);
             while (rs.next()) {
                 int id = rs.getInt("User_ID");
                 String name = rs.getString("User_Name");
                 users.add(new User(id, name));
             }
+            timer.setRows(users.size());
         } catch (SQLException e) {
             return users;
+        } finally {
+            timer.stop();
         }
         return users;
     }
 
+    /**
+     * Customer and appointment totals per country, counted by the database in one grouped query
+     */
+    private static final String COUNTRY_REPORT_SELECT = "SELECT co.Country_ID, co.Country, " +
+            "COUNT(DISTINCT c.Customer_ID) AS Customers, COUNT(a.Appointment_ID) AS Appointments " +
+            "FROM countries co LEFT JOIN first_level_divisions d ON d.Country_ID = co.Country_ID " +
+            "LEFT JOIN customers c ON c.Division_ID = d.Division_ID " +
+            "LEFT JOIN appointments a ON a.Customer_ID = c.Customer_ID";
+
+    /**
+     * Counts the customers in a country and the appointments belonging to them
+     * @return totals for the country
+     * @param country country to report on
+     */
+    public static CountryReport getCountryReport(Country country) {
+        String sql = COUNTRY_REPORT_SELECT + " WHERE co.Country_ID = ? GROUP BY co.Country_ID, co.Country";
+        List<CountryReport> reports = new ArrayList<>();
+        QueryMetrics.Timer timer = QueryMetrics.start("getCountryReport");
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, country.getId());
+            ResultSet rs = ps.executeQuery();
+            readCountryReports(rs, reports);
+            timer.setRows(reports.size());
+        } catch (SQLException e) {
+            System.out.println(e.getMessage());
+        } finally {
+            timer.stop();
+        }
+        return reports.isEmpty() ? new CountryReport(country, 0, 0) : reports.get(0);
+    }
+
+    /**
+     * Counts the customers and appointments for every country at once
+     * @return totals for each country, including countries with no customers
+     */
+    public static List<CountryReport> getCountryReports() {
+        String sql = COUNTRY_REPORT_SELECT + " GROUP BY co.Country_ID, co.Country";
+        List<CountryReport> reports = new ArrayList<>();
+        QueryMetrics.Timer timer = QueryMetrics.start("getCountryReports");
+        try (Connection conn = JDBC.getConnection();
+             Statement stmt = conn.createStatement()) {
+            ResultSet rs = stmt.executeQuery(sql);
+            readCountryReports(rs, reports);
+            timer.setRows(reports.size());
+        } catch (SQLException e) {
+            System.out.println(e.getMessage());
+        } finally {
+            timer.stop();
+        }
+        return reports;
+    }
+
+    /**
+     * Reads rows selected with COUNTRY_REPORT_SELECT into reports
+     * @param rs result set positioned before the first row
+     * @param reports list to add the reports to
+     * @throws SQLException if a row can't be read
+     */
+    private static void readCountryReports(ResultSet rs, List<CountryReport> reports) throws SQLException {
+        while (rs.next()) {
+            Country country = new Country(rs.getInt("Country_ID"), rs.getString("Country"));
+            reports.add(new CountryReport(country, rs.getInt("Customers"), rs.getInt("Appointments")));
+        }
+    }
+
+    private static final String CUSTOMER_APPOINTMENT_COUNT = "SELECT COUNT(*) AS total FROM appointments " +
+            "WHERE Customer_ID = ?";
+
     /**
      * Gets number of appointments associated with a customer
      * @return number of appointments
      * @param customer Customer class to pull count of appointments
      */
     static int getCountOfAppointments(Customer customer) {
-        String sql = "SELECT COUNT(*) AS total FROM appointments WHERE Customer_ID = ?";
-        try {
-            PreparedStatement ps = JDBC.connection.prepareStatement(sql);
+        QueryMetrics.Timer timer = QueryMetrics.start("getCountOfAppointmentsForCustomer");
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(CUSTOMER_APPOINTMENT_COUNT)) {
             ps.setInt(1, customer.getId());
             ResultSet rs = ps.executeQuery();
+            timer.setRows(1);
             if (rs.next()) {
                 return rs.getInt("total");
             } else {
@@ -749,8 +1126,82 @@ public class DBModel {
             }
         } catch (SQLException e) {
             System.out.println(e.getMessage());
+        } finally {
+            timer.stop();
         }
         return 0;
     }
 
+    /**
+     * Tables below this many rows are left out of plan checks, since MySQL scans small tables on purpose
+     */
+    private static final long PLAN_CHECK_MIN_ROWS = 1000;
+
+    /**
+     * Runs EXPLAIN on the queries that still go to the database (the appointment load, the sync queries, the
+     * country reports and the customer appointment count) and adds how each reads its tables to the StartupReport
+     * notes.  A query is flagged if it would scan a large table that it should reach through an index added by
+     * SchemaMigrator.  A diagnostic, run by LoadDriver and at startup only with -Dscheduling.verifyQueryPlans=true.
+     * @return number of queries flagged
+     */
+    public static int verifyQueryPlans() {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        int flagged = 0;
+        try (Connection conn = JDBC.getConnection()) {
+            flagged += explain(conn, "loadAppointmentIndexes", APPOINTMENT_SELECT, List.of("c"));
+            flagged += explain(conn, "getChangesSince appointments", APPOINTMENT_SELECT +
+                    " WHERE a.Last_Update >= ?", List.of("a", "c"), now);
+            flagged += explain(conn, "getChangesSince customers", CUSTOMER_SELECT + " WHERE c.Last_Update >= ?",
+                    List.of("c"), now);
+            flagged += explain(conn, "getChangesSince deleted_rows", DELETED_ROWS_SELECT, List.of("deleted_rows"),
+                    now);
+            flagged += explain(conn, "getCountryReport", COUNTRY_REPORT_SELECT +
+                    " WHERE co.Country_ID = ? GROUP BY co.Country_ID, co.Country", List.of("d", "c", "a"), 1);
+            flagged += explain(conn, "getCountryReports", COUNTRY_REPORT_SELECT +
+                    " GROUP BY co.Country_ID, co.Country", List.of("d", "c", "a"));
+            flagged += explain(conn, "getCountOfAppointmentsForCustomer", CUSTOMER_APPOINTMENT_COUNT,
+                    List.of("appointments"));
+        } catch (SQLException e) {
+            System.out.println("Could not check query plans: " + e.getMessage());
+        }
+        return flagged;
+    }
+
+    /**
+     * Notes the plan for one query, flagging full scans of the tables it should read through an index
+     * @param conn connection to explain on
+     * @param name name to note the plan under
+     * @param sql query to explain
+     * @param indexed aliases, as named in the query, of the tables that shouldn't be fully scanned
+     * @param params values for the query's parameters
+     * @return 1 if the query was flagged, otherwise 0
+     * @throws SQLException for SQL error
+     */
+    private static int explain(Connection conn, String name, String sql, List<String> indexed, Object... params)
+            throws SQLException {
+        StringBuilder plan = new StringBuilder("EXPLAIN " + name + ":");
+        boolean fullScan = false;
+        try (PreparedStatement ps = conn.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                String table = rs.getString("table");
+                String key = rs.getString("key");
+                long rows = rs.getLong("rows");
+                plan.append(" ").append(table).append("=").append(key == null ? "scan" : key).append(" (")
+                        .append(rows).append(" rows)");
+                if (indexed.contains(table) && "ALL".equals(rs.getString("type")) && rows >= PLAN_CHECK_MIN_ROWS) {
+                    fullScan = true;
+                }
+            }
+        }
+        if (fullScan) {
+            plan.append(" - FULL SCAN, check the indexes in schema_version");
+        }
+        StartupReport.note(plan.toString());
+        return fullScan ? 1 : 0;
+    }
+
 }
@@ -0,0 +1,57 @@
+package scheduling.Model;
+
+import helper.JDBC;
+import java.sql.Connection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Warms the database connection and loads the data the first views need on background threads while the user is
+ * still logging in.  Each phase is timed and printed.
+ * @author Jason Philpy
+ */
+public class DataPreloader {
+
+    /**
+     * Runs every preload phase in parallel
+     * @return a future completed once every phase has finished, successfully or not
+     */
+    public static CompletableFuture<Void> preload() {
+        CompletableFuture<Void> connection = timed("connection", () -> {
+            try (Connection conn = JDBC.getConnection()) {
+                return conn.isValid(2);
+            }
+        });
+        CompletableFuture<Void> referenceData = connection.thenCompose(ignored -> CompletableFuture.allOf(
+                timed("countries", ReferenceDataCache::getAllCountries),
+                timed("divisions", ReferenceDataCache::getAllDivisions),
+                timed("contacts", ReferenceDataCache::getAllContacts),
+                timed("users", ReferenceDataCache::getAllUsers)));
+        CompletableFuture<Void> appointments = connection.thenCompose(ignored ->
+                timed("appointments", () -> {
+                    DBModel.preloadAppointments();
+                    return null;
+                }));
+        return CompletableFuture.allOf(referenceData, appointments);
+    }
+
+    /**
+     * Runs one phase on a database worker and prints how long it took
+     * @param phase name of the phase
+     * @param work the work to run
+     * @return a future completed when the phase finishes, never exceptionally
+     */
+    private static CompletableFuture<Void> timed(String phase, Callable<?> work) {
+        long start = System.nanoTime();
+        return DBExecutor.supply(work).handle((result, error) -> {
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            if (error != null) {
+                System.out.println("Preload " + phase + " failed after " + millis + " ms: " +
+                        DBExecutor.unwrap(error).getMessage());
+            } else {
+                System.out.println("Preload " + phase + ": " + millis + " ms");
+            }
+            return null;
+        });
+    }
+}
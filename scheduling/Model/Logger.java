@@ -1,31 +1,286 @@
 package scheduling.Model;
 
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Class responsible for writing to a file
+ * Class responsible for writing to a file.  Messages are queued and written by a background thread in batches,
+ * so callers never wait on the disk unless the queue is full.
  * @author Jason Philpy
  */
 public class Logger {
 
     /**
-     * Creates login_activity.txt file if it doesn't exist, then writes a message to it
+     * When the log file is forced to disk
+     */
+    public enum FsyncPolicy {
+        /**
+         * Leave it to the operating system
+         */
+        NEVER,
+        /**
+         * After every batch of messages is written
+         */
+        EVERY_BATCH
+    }
+
+    private static final String LOG_FILE = "login_activity.txt";
+
+    /**
+     * Log file is rotated once it grows past this many bytes
+     */
+    private static final long MAX_FILE_BYTES = 1024 * 1024;
+
+    /**
+     * Log file is rotated once it has been open this long
+     */
+    private static final long MAX_FILE_AGE_MILLIS = 24 * 60 * 60 * 1000;
+
+    /**
+     * Number of rotated log files kept
+     */
+    private static final int MAX_ROTATED_FILES = 5;
+
+    /**
+     * Most messages waiting to be written before callers block
+     */
+    private static final int QUEUE_CAPACITY = 1024;
+
+    /**
+     * Most messages written together before flushing
+     */
+    private static final int MAX_BATCH = 256;
+
+    /**
+     * Marks the end of the queue on shutdown.  Not a String, so no logged message can be mistaken for it.
+     */
+    private static final Object SHUTDOWN = new Object();
+
+    private static final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private static volatile FsyncPolicy fsyncPolicy = "never".equalsIgnoreCase(
+            System.getProperty("scheduling.log.fsync")) ? FsyncPolicy.NEVER : FsyncPolicy.EVERY_BATCH;
+    private static Thread writerThread;
+    private static boolean shuttingDown = false;
+    private static FileOutputStream fileStream;
+    private static Writer writer;
+    private static long fileBytes;
+    private static long fileOpenedAt;
+
+    /**
+     * Queues a message to be appended to login_activity.txt.  Blocks only if the queue is full.
      * @param message message to write to file
      */
     public static void writeToActivityLog(String message) {
-        File logFile = new File("login_activity.txt");
+        startWriter();
+        try {
+            queue.put(message);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("Interrupted before logging: " + message);
+        }
+    }
+
+    /**
+     * Sets when the log file is forced to disk
+     * @param policy new fsync policy
+     */
+    public static void setFsyncPolicy(FsyncPolicy policy) {
+        fsyncPolicy = policy;
+    }
+
+    /**
+     * Writes every queued message, closes the log file and stops the background writer
+     */
+    public static void shutdown() {
+        Thread thread;
+        synchronized (Logger.class) {
+            thread = writerThread;
+            if (thread == null || shuttingDown) {
+                return;
+            }
+            shuttingDown = true;
+        }
         try {
-            if (logFile.createNewFile()) {
-                System.out.println("Log file created.");
+            queue.put(SHUTDOWN);
+            thread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (Logger.class) {
+                writerThread = null;
+                shuttingDown = false;
             }
-            FileWriter writer = new FileWriter("login_activity.txt", true);
+        }
+    }
+
+    /**
+     * Starts the background writer if it isn't running.  While shutting down the current writer is kept, so a
+     * message logged then is queued behind the sentinel rather than starting a second writer on the same file.
+     */
+    private static synchronized void startWriter() {
+        if (writerThread == null) {
+            writerThread = new Thread(Logger::writeLoop, "activity-log-writer");
+            writerThread.setDaemon(true);
+            writerThread.start();
+        }
+    }
+
+    /**
+     * Takes batches of messages off the queue and writes them until shutdown or interruption, then writes whatever
+     * is still queued.  Waits no longer than the open file's rotation deadline so age rotation happens on time.
+     */
+    private static void writeLoop() {
+        List<Object> batch = new ArrayList<>(MAX_BATCH);
+        boolean running = true;
+        while (running) {
+            try {
+                Object first = queue.poll(millisUntilRotation(), TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH - 1);
+                }
+            } catch (InterruptedException e) {
+                running = false;
+                queue.drainTo(batch);
+            }
+            if (removeShutdown(batch)) {
+                running = false;
+                queue.drainTo(batch);
+                removeShutdown(batch);
+            }
+            try {
+                writeBatch(batch);
+            } catch (IOException e) {
+                System.out.println(e.getMessage());
+                closeFile();
+            }
+            batch.clear();
+        }
+        closeFile();
+    }
+
+    /**
+     * Removes the shutdown sentinel from a batch, compared by identity
+     * @param batch messages taken off the queue
+     * @return true if the sentinel was in the batch
+     */
+    private static boolean removeShutdown(List<Object> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            if (batch.get(i) == SHUTDOWN) {
+                batch.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes a batch of messages with a single flush, rotating the file first if needed
+     * @param batch messages to write
+     * @throws IOException if the file can't be written
+     */
+    private static void writeBatch(List<Object> batch) throws IOException {
+        rotateIfNeeded();
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (writer == null) {
+            openFile();
+        }
+        for (Object queued : batch) {
+            String message = (String) queued;
             writer.write(message);
-            writer.close();
-        } catch (IOException e) {
-            System.out.println(e.getMessage());
+            fileBytes += message.getBytes(StandardCharsets.UTF_8).length;
+        }
+        writer.flush();
+        if (fsyncPolicy == FsyncPolicy.EVERY_BATCH) {
+            fileStream.getChannel().force(false);
         }
     }
 
+    /**
+     * @return milliseconds until the open log file is old enough to rotate, or the full age limit if no file is
+     * open
+     */
+    private static long millisUntilRotation() {
+        if (writer == null) {
+            return MAX_FILE_AGE_MILLIS;
+        }
+        return Math.max(0, fileOpenedAt + MAX_FILE_AGE_MILLIS - System.currentTimeMillis());
+    }
+
+    /**
+     * Opens the log file for appending, creating it if it doesn't exist
+     * @throws IOException if the file can't be opened
+     */
+    private static void openFile() throws IOException {
+        File logFile = new File(LOG_FILE);
+        if (logFile.createNewFile()) {
+            System.out.println("Log file created.");
+        }
+        fileStream = new FileOutputStream(logFile, true);
+        writer = new BufferedWriter(new OutputStreamWriter(fileStream, StandardCharsets.UTF_8));
+        fileBytes = logFile.length();
+        fileOpenedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Closes the log file if it is open
+     */
+    private static void closeFile() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                System.out.println(e.getMessage());
+            }
+            writer = null;
+            fileStream = null;
+        }
+    }
+
+    /**
+     * Moves the log file aside once it is too large or too old, and deletes the oldest rotated files
+     * @throws IOException if the file can't be renamed
+     */
+    private static void rotateIfNeeded() throws IOException {
+        File logFile = new File(LOG_FILE);
+        boolean tooOld = writer != null && System.currentTimeMillis() - fileOpenedAt >= MAX_FILE_AGE_MILLIS;
+        boolean tooLarge = writer != null ? fileBytes > MAX_FILE_BYTES : logFile.length() > MAX_FILE_BYTES;
+        if (!tooOld && !tooLarge) {
+            return;
+        }
+        closeFile();
+        if (logFile.length() == 0) {
+            return;
+        }
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        File rotated = new File("login_activity." + stamp + ".txt");
+        if (!logFile.renameTo(rotated)) {
+            throw new IOException("Could not rotate " + LOG_FILE);
+        }
+        File[] oldFiles = new File(".").listFiles((dir, name) -> name.startsWith("login_activity.") &&
+                !name.equals(LOG_FILE));
+        if (oldFiles != null && oldFiles.length > MAX_ROTATED_FILES) {
+            Arrays.sort(oldFiles);
+            for (int i = 0; i < oldFiles.length - MAX_ROTATED_FILES; i++) {
+                if (!oldFiles[i].delete()) {
+                    System.out.println("Could not delete old log " + oldFiles[i].getName());
+                }
+            }
+        }
+    }
 }
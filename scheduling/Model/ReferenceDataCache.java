@@ -0,0 +1,174 @@
+package scheduling.Model;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Process-wide cache for reference data (countries, divisions, contacts and users) that rarely changes.  Each
+ * table is loaded from the database once and then served from memory until its time to live runs out or it is
+ * invalidated.  Hit and miss counts are published through JMX and printed at shutdown.
+ * @author Jason Philpy
+ */
+public class ReferenceDataCache {
+
+    /**
+     * How long a loaded table is served before it is reloaded
+     */
+    private static final long TIME_TO_LIVE_MILLIS = 30 * 60 * 1000;
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final CachedValue<ObservableList<Country>> countries =
+            new CachedValue<>(DBModel::getAllCountries, List::isEmpty);
+    private static final CachedValue<HashMap<Integer, ObservableList<Division>>> divisions =
+            new CachedValue<>(DBModel::getAllDivisions, HashMap::isEmpty);
+    private static final CachedValue<ObservableList<Contact>> contacts =
+            new CachedValue<>(DBModel::getAllContacts, List::isEmpty);
+    private static final CachedValue<ObservableList<User>> users =
+            new CachedValue<>(DBModel::getAllUsers, List::isEmpty);
+
+    static {
+        register();
+    }
+
+    /**
+     * Gets all countries
+     * @return a copy of the cached list of countries
+     */
+    public static ObservableList<Country> getAllCountries() {
+        return FXCollections.observableArrayList(countries.get());
+    }
+
+    /**
+     * Gets all divisions grouped by Country_ID
+     * @return a copy of the cached map of divisions
+     */
+    public static HashMap<Integer, ObservableList<Division>> getAllDivisions() {
+        HashMap<Integer, ObservableList<Division>> copy = new HashMap<>();
+        for (Map.Entry<Integer, ObservableList<Division>> entry : divisions.get().entrySet()) {
+            copy.put(entry.getKey(), FXCollections.observableArrayList(entry.getValue()));
+        }
+        return copy;
+    }
+
+    /**
+     * Gets all contacts
+     * @return a copy of the cached list of contacts
+     */
+    public static ObservableList<Contact> getAllContacts() {
+        return FXCollections.observableArrayList(contacts.get());
+    }
+
+    /**
+     * Gets all users
+     * @return a copy of the cached list of users
+     */
+    public static ObservableList<User> getAllUsers() {
+        return FXCollections.observableArrayList(users.get());
+    }
+
+    /**
+     * Drops every cached table so the next request reloads it from the database.  Called on logout, since the app
+     * never writes these tables and another client may have.
+     */
+    public static void invalidateAll() {
+        countries.invalidate();
+        divisions.invalidate();
+        contacts.invalidate();
+        users.invalidate();
+    }
+
+    /**
+     * @return number of requests served from memory
+     */
+    public static long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of requests that had to load from the database
+     */
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the hit and miss counts as one line
+     */
+    public static String getReport() {
+        return "Reference data cache: " + hits.get() + " hits, " + misses.get() + " misses";
+    }
+
+    /**
+     * Registers the hit and miss counts with the platform MBean server as scheduling:type=ReferenceDataCache
+     */
+    private static void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("scheduling:type=ReferenceDataCache");
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new ReferenceDataCacheMXBean() {
+                    @Override
+                    public long getHits() {
+                        return hits.get();
+                    }
+
+                    @Override
+                    public long getMisses() {
+                        return misses.get();
+                    }
+                }, name);
+            }
+        } catch (Exception e) {
+            System.out.println("Could not register reference data cache metrics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * One cached table along with when it was loaded
+     * @param <T> type of the loaded data
+     */
+    private static class CachedValue<T> {
+        private final Supplier<T> loader;
+        private final Predicate<T> isEmpty;
+        private T value;
+        private long loadedAt;
+
+        private CachedValue(Supplier<T> loader, Predicate<T> isEmpty) {
+            this.loader = loader;
+            this.isEmpty = isEmpty;
+        }
+
+        /**
+         * Returns the cached value, loading it first if it is missing or expired.  Empty results are not kept
+         * since DBModel returns an empty collection when the database can't be reached.
+         * @return the cached value
+         */
+        private synchronized T get() {
+            if (value != null && System.currentTimeMillis() - loadedAt < TIME_TO_LIVE_MILLIS) {
+                hits.incrementAndGet();
+                return value;
+            }
+            misses.incrementAndGet();
+            T loaded = loader.get();
+            if (!isEmpty.test(loaded)) {
+                value = loaded;
+                loadedAt = System.currentTimeMillis();
+            }
+            return loaded;
+        }
+
+        private synchronized void invalidate() {
+            value = null;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package scheduling.Model;
+
+/**
+ * Reference data cache counts, as seen through JMX
+ * @author Jason Philpy
+ */
+public interface ReferenceDataCacheMXBean {
+
+    /**
+     * @return number of requests served from memory
+     */
+    long getHits();
+
+    /**
+     * @return number of requests that had to load from the database
+     */
+    long getMisses();
+}
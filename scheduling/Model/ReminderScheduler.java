@@ -0,0 +1,195 @@
+package scheduling.Model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Pushes the current appointment and the appointments starting soon to a listener whenever either changes.
+ * Appointments that haven't ended are kept in memory sorted by start time, and a single background thread sleeps
+ * until the next moment an appointment starts, ends or comes within the soon window, so the database is never
+ * polled.  Past appointments are never held, and each appointment is dropped once it ends.
+ * @author Jason Philpy
+ */
+public class ReminderScheduler {
+
+    /**
+     * How far ahead an appointment counts as starting soon
+     */
+    public static final long SOON_MILLIS = 15 * 60 * 1000;
+
+    /**
+     * Appointments ordered by start time, then id
+     */
+    private final TreeSet<Appointment> byStart = new TreeSet<>((a, b) -> a.getStartMillis() != b.getStartMillis() ?
+            Long.compare(a.getStartMillis(), b.getStartMillis()) : Integer.compare(a.getId(), b.getId()));
+
+    /**
+     * Appointments by Appointment_ID for updates and removals
+     */
+    private final HashMap<Integer, Appointment> byId = new HashMap<>();
+
+    private final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "appointment-reminders");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ScheduledFuture<?> nextWake;
+    private BiConsumer<Appointment, List<Appointment>> listener;
+
+    /**
+     * Sets who is told about the current and upcoming appointments, and tells them right away.  Called on the
+     * reminder thread with the appointment in progress (or null) and the appointments starting soon.
+     * @param listener receives each new notice
+     */
+    public synchronized void setListener(BiConsumer<Appointment, List<Appointment>> listener) {
+        this.listener = listener;
+        wakeNow();
+    }
+
+    /**
+     * Replaces every appointment, keeping only those that haven't ended
+     * @param appointments every appointment, in any order
+     */
+    public synchronized void load(Collection<Appointment> appointments) {
+        byStart.clear();
+        byId.clear();
+        long now = System.currentTimeMillis();
+        for (Appointment appt : appointments) {
+            if (appt.getEndMillis() > now) {
+                add(appt);
+            }
+        }
+        wakeNow();
+    }
+
+    /**
+     * Adds an appointment, or replaces it if it is already scheduled.  An appointment that has already ended is
+     * only removed.
+     * @param appt appointment to remind about
+     */
+    public synchronized void put(Appointment appt) {
+        Appointment old = byId.remove(appt.getId());
+        if (old != null) {
+            byStart.remove(old);
+        }
+        if (appt.getEndMillis() > System.currentTimeMillis()) {
+            add(appt);
+        }
+        wakeNow();
+    }
+
+    /**
+     * Stops reminding about an appointment
+     * @param id Appointment_ID
+     */
+    public synchronized void remove(int id) {
+        Appointment old = byId.remove(id);
+        if (old != null) {
+            byStart.remove(old);
+            wakeNow();
+        }
+    }
+
+    /**
+     * Drops every appointment, the listener and any pending wake-up, so nothing fires after logout
+     */
+    public synchronized void clear() {
+        byStart.clear();
+        byId.clear();
+        listener = null;
+        if (nextWake != null) {
+            nextWake.cancel(false);
+            nextWake = null;
+        }
+    }
+
+    /**
+     * Adds an appointment to both collections
+     * @param appt appointment to add
+     */
+    private void add(Appointment appt) {
+        byStart.add(appt);
+        byId.put(appt.getId(), appt);
+    }
+
+    /**
+     * Replaces any pending wake-up with one that runs right away
+     */
+    private void wakeNow() {
+        schedule(0);
+    }
+
+    /**
+     * Replaces any pending wake-up
+     * @param delayMillis milliseconds until the wake-up
+     */
+    private void schedule(long delayMillis) {
+        if (nextWake != null) {
+            nextWake.cancel(false);
+        }
+        nextWake = timer.schedule(this::wake, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Drops the appointments that have ended, works out the current notice, tells the listener, and sleeps until
+     * the notice will next change
+     */
+    private void wake() {
+        Appointment current = null;
+        List<Appointment> soon = new ArrayList<>();
+        BiConsumer<Appointment, List<Appointment>> notify;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            long nextChange = Long.MAX_VALUE;
+            Iterator<Appointment> started = byStart.headSet(probe(now + 1), false).iterator();
+            while (started.hasNext()) {
+                Appointment appt = started.next();
+                if (appt.getEndMillis() <= now) {
+                    started.remove();
+                    byId.remove(appt.getId());
+                    continue;
+                }
+                if (current == null) {
+                    current = appt;
+                }
+                nextChange = Math.min(nextChange, appt.getEndMillis());
+            }
+            for (Appointment appt : byStart.subSet(probe(now + 1), true, probe(now + SOON_MILLIS + 1), false)) {
+                soon.add(appt);
+                nextChange = Math.min(nextChange, appt.getStartMillis());
+            }
+            Appointment nextSoon = byStart.ceiling(probe(now + SOON_MILLIS + 1));
+            if (nextSoon != null) {
+                nextChange = Math.min(nextChange, nextSoon.getStartMillis() - SOON_MILLIS);
+            }
+            if (nextChange != Long.MAX_VALUE) {
+                schedule(Math.max(0, nextChange - now));
+            }
+            notify = listener;
+        }
+        if (notify != null) {
+            try {
+                notify.accept(current, soon);
+            } catch (RuntimeException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Builds a search key that sorts before every appointment starting at a time
+     * @param start start time in epoch milliseconds
+     * @return the search key
+     */
+    private static Appointment probe(long start) {
+        return new Appointment(Integer.MIN_VALUE, null, null, null, null, start, start, 0, null, 0);
+    }
+}
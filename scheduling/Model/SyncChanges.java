@@ -0,0 +1,59 @@
+package scheduling.Model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rows added, updated or deleted by any client since a sync watermark
+ * @author Jason Philpy
+ */
+public class SyncChanges {
+    private final List<Appointment> appointments;
+    private final List<Customer> customers;
+    private final Map<Integer, Long> deletedAppointments;
+    private final Map<Integer, Long> deletedCustomers;
+
+    /**
+     * @param appointments appointments added or updated
+     * @param customers customers added or updated
+     * @param deletedAppointments deletion times in epoch milliseconds by Appointment_ID
+     * @param deletedCustomers deletion times in epoch milliseconds by Customer_ID
+     */
+    public SyncChanges(List<Appointment> appointments, List<Customer> customers,
+                       Map<Integer, Long> deletedAppointments, Map<Integer, Long> deletedCustomers) {
+        this.appointments = appointments;
+        this.customers = customers;
+        this.deletedAppointments = deletedAppointments;
+        this.deletedCustomers = deletedCustomers;
+    }
+
+    public List<Appointment> getAppointments() {
+        return appointments;
+    }
+
+    public List<Customer> getCustomers() {
+        return customers;
+    }
+
+    /**
+     * @return deletion times in epoch milliseconds by Appointment_ID
+     */
+    public Map<Integer, Long> getDeletedAppointments() {
+        return deletedAppointments;
+    }
+
+    /**
+     * @return deletion times in epoch milliseconds by Customer_ID
+     */
+    public Map<Integer, Long> getDeletedCustomers() {
+        return deletedCustomers;
+    }
+
+    /**
+     * @return true if nothing changed
+     */
+    public boolean isEmpty() {
+        return appointments.isEmpty() && customers.isEmpty() && deletedAppointments.isEmpty() &&
+                deletedCustomers.isEmpty();
+    }
+}
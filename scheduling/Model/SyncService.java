@@ -0,0 +1,178 @@
+package scheduling.Model;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Keeps this client in step with changes other clients make to the shared database.  Every few seconds the rows
+ * whose Last_Update changed since a watermark, and the tombstones of deleted rows, are pulled in one round trip
+ * and handed to listeners on the JavaFX application thread so views can patch themselves in place instead of
+ * reloading.  Last_Update is written from each client's clock, so the watermark trails the last poll by a
+ * window wide enough to cover clock skew, and rows already delivered are filtered out.
+ * @author Jason Philpy
+ */
+public class SyncService {
+
+    /**
+     * Time between polls
+     */
+    private static final long POLL_MILLIS = 5000;
+
+    /**
+     * How far back each poll re-reads to catch rows written by clients whose clocks run behind
+     */
+    private static final long OVERLAP_MILLIS = 2 * 60 * 1000;
+
+    private static final CopyOnWriteArrayList<Consumer<SyncChanges>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Last_Update or deletion time of each row delivered within the overlap window, only touched on the sync
+     * thread
+     */
+    private static final HashMap<Integer, Long> seenAppointments = new HashMap<>();
+    private static final HashMap<Integer, Long> seenCustomers = new HashMap<>();
+    private static final HashMap<Integer, Long> seenDeletedAppointments = new HashMap<>();
+    private static final HashMap<Integer, Long> seenDeletedCustomers = new HashMap<>();
+
+    private static ScheduledThreadPoolExecutor timer;
+    private static long lastPoll;
+
+    /**
+     * Starts polling for changes made from now on.  Does nothing if already started.
+     */
+    public static synchronized void start() {
+        if (timer != null) {
+            return;
+        }
+        seenAppointments.clear();
+        seenCustomers.clear();
+        seenDeletedAppointments.clear();
+        seenDeletedCustomers.clear();
+        lastPoll = System.currentTimeMillis();
+        timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "change-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleWithFixedDelay(SyncService::poll, POLL_MILLIS, POLL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops polling
+     */
+    public static synchronized void stop() {
+        if (timer == null) {
+            return;
+        }
+        timer.shutdownNow();
+        timer = null;
+    }
+
+    /**
+     * Adds a listener told about each batch of changes on the JavaFX application thread
+     * @param listener receives the changes
+     */
+    public static void addListener(Consumer<SyncChanges> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes every listener, used when the views holding them are discarded
+     */
+    public static void clearListeners() {
+        listeners.clear();
+    }
+
+    /**
+     * Pulls the changes since the watermark and hands any not delivered before to the listeners
+     */
+    private static void poll() {
+        long pollStart = System.currentTimeMillis();
+        long since = lastPoll - OVERLAP_MILLIS;
+        SyncChanges changes;
+        try {
+            changes = DBModel.getChangesSince(since);
+        } catch (SQLException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+        lastPoll = pollStart;
+        SyncChanges unseen = new SyncChanges(unseen(changes.getAppointments(), seenAppointments,
+                Appointment::getId, Appointment::getLastUpdateMillis),
+                unseen(changes.getCustomers(), seenCustomers, Customer::getId, Customer::getLastUpdateMillis),
+                unseen(changes.getDeletedAppointments(), seenDeletedAppointments),
+                unseen(changes.getDeletedCustomers(), seenDeletedCustomers));
+        prune(since);
+        if (!unseen.isEmpty()) {
+            DBExecutor.FX_THREAD.execute(() -> {
+                for (Consumer<SyncChanges> listener : listeners) {
+                    try {
+                        listener.accept(unseen);
+                    } catch (RuntimeException e) {
+                        System.out.println(e.getMessage());
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Keeps the rows that are new or changed since they were last delivered, and records them as delivered
+     * @param rows rows returned by the poll
+     * @param seen last delivered time by id
+     * @param id gets a row's id
+     * @param lastUpdate gets a row's Last_Update in epoch milliseconds
+     * @param <T> type of row
+     * @return the rows not delivered before
+     */
+    private static <T> List<T> unseen(List<T> rows, Map<Integer, Long> seen,
+                                      ToIntFunction<T> id, ToLongFunction<T> lastUpdate) {
+        List<T> unseen = new ArrayList<>();
+        for (T row : rows) {
+            Long previous = seen.get(id.applyAsInt(row));
+            if (previous == null || lastUpdate.applyAsLong(row) > previous) {
+                seen.put(id.applyAsInt(row), lastUpdate.applyAsLong(row));
+                unseen.add(row);
+            }
+        }
+        return unseen;
+    }
+
+    /**
+     * Keeps the deletions not delivered before, and records them as delivered
+     * @param deleted deletion times by id returned by the poll
+     * @param seen last delivered deletion time by id
+     * @return the deletions not delivered before
+     */
+    private static Map<Integer, Long> unseen(Map<Integer, Long> deleted, Map<Integer, Long> seen) {
+        Map<Integer, Long> unseen = new HashMap<>();
+        for (Map.Entry<Integer, Long> row : deleted.entrySet()) {
+            Long previous = seen.get(row.getKey());
+            if (previous == null || row.getValue() > previous) {
+                seen.put(row.getKey(), row.getValue());
+                unseen.put(row.getKey(), row.getValue());
+            }
+        }
+        return unseen;
+    }
+
+    /**
+     * Forgets rows older than the watermark since no later poll can return them again
+     * @param since watermark of the poll just made
+     */
+    private static void prune(long since) {
+        seenAppointments.values().removeIf(time -> time < since);
+        seenCustomers.values().removeIf(time -> time < since);
+        seenDeletedAppointments.values().removeIf(time -> time < since);
+        seenDeletedCustomers.values().removeIf(time -> time < since);
+    }
+}
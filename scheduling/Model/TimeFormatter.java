@@ -1,20 +1,45 @@
 package scheduling.Model;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
 import java.util.Date;
-import java.util.TimeZone;
+import java.util.Locale;
 
 /**
- * Creates dates or formats them into strings based on local, UTC, or EST
+ * Creates dates or formats them into strings based on local, UTC, or EST.  Formatters and zones are immutable and
+ * built once, so every method is safe to call from any thread.
  * @author Jason Philpy
  */
 public class TimeFormatter  {
 
-    private static final SimpleDateFormat formatter = new SimpleDateFormat();
-    private static final String SERVER_FORMAT = "yyyy-MM-dd HH:mm:ss";
-    private static final String DISPLAY_FORMAT = "MM/dd/yy h:mm a";
+    /**
+     * Zone the office keeps business hours in
+     */
+    public static final ZoneId EST = ZoneId.of("America/New_York");
+
+    /**
+     * Zone the database stores times in
+     */
+    public static final ZoneId UTC = ZoneOffset.UTC;
+
+    /**
+     * Zone of this computer, read once at startup
+     */
+    public static final ZoneId LOCAL = ZoneId.systemDefault();
+
+    private static final DateTimeFormatter SERVER_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(UTC);
+    private static final DateTimeFormatter DISPLAY_FORMAT =
+            DateTimeFormatter.ofPattern("MM/dd/yy h:mm a").withZone(LOCAL);
+    private static final DateTimeFormatter EST_INPUT_FORMAT = new DateTimeFormatterBuilder()
+            .parseCaseInsensitive()
+            .appendPattern("M/d/yy h:mm a")
+            .toFormatter(Locale.US);
 
     /**
      * Takes a date and provides a string in timestamp format in the UTC timezone
@@ -22,9 +47,16 @@ public class TimeFormatter  {
      * @return String of time in timestamp format
      */
     public static String getTimeStringUTC(Date date) {
-        formatter.applyPattern(SERVER_FORMAT);
-        formatter.setTimeZone(TimeZone.getTimeZone("UTC"));
-        return formatter.format(date);
+        return SERVER_FORMAT.format(date.toInstant());
+    }
+
+    /**
+     * Takes an instant and provides a string in timestamp format in the UTC timezone
+     * @param instant Instant to convert
+     * @return String of time in timestamp format
+     */
+    public static String getTimeStringUTC(Instant instant) {
+        return SERVER_FORMAT.format(instant);
     }
 
     /**
@@ -33,9 +65,16 @@ public class TimeFormatter  {
      * @return string of date in readable format
      */
     public static String getTimeStringForDisplay(Date date) {
-        formatter.applyPattern(DISPLAY_FORMAT);
-        formatter.setTimeZone(TimeZone.getDefault());
-        return formatter.format(date);
+        return DISPLAY_FORMAT.format(date.toInstant());
+    }
+
+    /**
+     * Takes epoch milliseconds and provides a string in displayable format and in the local timezone
+     * @param epochMillis time to convert
+     * @return string of date in readable format
+     */
+    public static String getTimeStringForDisplay(long epochMillis) {
+        return DISPLAY_FORMAT.format(Instant.ofEpochMilli(epochMillis));
     }
 
     /**
@@ -44,13 +83,20 @@ public class TimeFormatter  {
      * @return the converted Date
      */
     public static Date getESTDateFromString(String dateString) {
-        formatter.applyPattern(DISPLAY_FORMAT);
-        formatter.setTimeZone(TimeZone.getTimeZone(ZoneId.of("America/New_York")));
+        return Date.from(getESTInstantFromString(dateString));
+    }
+
+    /**
+     * Takes a string and converts it to an instant in EST timezone
+     * @param dateString date as string in format of MM/dd/yy h:mm a
+     * @return the converted Instant, or now if the string can't be parsed
+     */
+    public static Instant getESTInstantFromString(String dateString) {
         try {
-            return formatter.parse(dateString);
-        } catch (ParseException e) {
+            return LocalDateTime.parse(dateString, EST_INPUT_FORMAT).atZone(EST).toInstant();
+        } catch (DateTimeParseException e) {
             System.out.println(e.getMessage());
-            return new Date();
+            return Instant.now();
         }
     }
 
@@ -0,0 +1,54 @@
+package scheduling.Model;
+
+/**
+ * Thrown when an update is rejected because another user changed or deleted the row since it was read.  Carries
+ * the row as it is now so the caller can merge and retry.
+ * @author Jason Philpy
+ */
+public class UpdateConflictException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    private final Appointment latestAppointment;
+    private final Customer latestCustomer;
+
+    /**
+     * @param id Appointment_ID that was being updated
+     * @param latest the appointment as it is now, or null if it was deleted
+     */
+    public UpdateConflictException(int id, Appointment latest) {
+        super("Appointment " + id + " was " + (latest == null ? "deleted" : "changed") + " by another user.");
+        this.latestAppointment = latest;
+        this.latestCustomer = null;
+    }
+
+    /**
+     * @param id Customer_ID that was being updated
+     * @param latest the customer as it is now, or null if it was deleted
+     */
+    public UpdateConflictException(int id, Customer latest) {
+        super("Customer " + id + " was " + (latest == null ? "deleted" : "changed") + " by another user.");
+        this.latestAppointment = null;
+        this.latestCustomer = latest;
+    }
+
+    /**
+     * @return the appointment as it is now, or null if it was deleted or this is a customer conflict
+     */
+    public Appointment getLatestAppointment() {
+        return latestAppointment;
+    }
+
+    /**
+     * @return the customer as it is now, or null if it was deleted or this is an appointment conflict
+     */
+    public Customer getLatestCustomer() {
+        return latestCustomer;
+    }
+
+    /**
+     * @return true if the row no longer exists
+     */
+    public boolean isDeleted() {
+        return latestAppointment == null && latestCustomer == null;
+    }
+}
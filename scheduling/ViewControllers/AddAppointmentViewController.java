@@ -12,8 +12,12 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.TimeZone;
 import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * View Controller class for adding or updating an appointment
@@ -147,30 +151,35 @@ public class AddAppointmentViewController extends ViewController {
     @FXML
     private Label errorLabel;
 
+    /**
+     * Most times a save is merged with another user's changes and retried without asking
+     */
+    private static final int MAX_MERGE_RETRIES = 3;
+
     /**
      * Appointment to be updated if true, added new if false
      */
     private boolean isUpdating = false;
 
     /**
-     * Appointment to add or update
+     * Appointment to add or update, as last read from the database
      */
     private Appointment appointment;
 
     /**
      * List of all contacts
      */
-    private final ObservableList<Contact> contacts = DBModel.getAllContacts();
+    private final ObservableList<Contact> contacts = FXCollections.observableArrayList();
 
     /**
      * List of all customers
      */
-    private final ObservableList<Customer> customers = DBModel.getAllCustomers();
+    private final ObservableList<Customer> customers = FXCollections.observableArrayList();
 
     /**
      * List of all users
      */
-    private final ObservableList<User> users = DBModel.getAllUsers();
+    private final ObservableList<User> users = FXCollections.observableArrayList();
 
     /**
      * Sets field data and button actions using lambdas
@@ -199,13 +208,10 @@ public class AddAppointmentViewController extends ViewController {
         apptEndMinute.getSelectionModel().selectFirst();
         apptContact.setConverter(Contact.contactStringConverter);
         apptContact.setItems(contacts);
-        apptContact.getSelectionModel().selectFirst();
         apptCustomer.setConverter(Customer.customerStringConverter);
         apptCustomer.setItems(customers);
-        apptCustomer.getSelectionModel().selectFirst();
         apptUser.setConverter(User.userStringConverter);
         apptUser.setItems(users);
-        apptUser.getSelectionModel().selectFirst();
         apptDate.setValue(LocalDate.now());
         apptDate.setDayCellFactory(datePicker -> new DateCell() {
             @Override
@@ -217,6 +223,7 @@ public class AddAppointmentViewController extends ViewController {
         if (Main.getPrimaryStage().getUserData() != null) {
             convertToUpdating();
         }
+        loadChoices();
         addBtn.setOnAction(actionEvent -> addBtnAction());
         backBtn.setOnAction(actionEvent -> exitToMenu());
         apptStartAM.setOnAction(actionEvent -> toggleAMPM(true, true));
@@ -225,25 +232,84 @@ public class AddAppointmentViewController extends ViewController {
         apptEndPM.setOnAction(actionEvent -> toggleAMPM(false, false));
     }
 
+    /**
+     * Loads the contact, customer and user choices on a background thread.  The add/update button stays disabled
+     * until they arrive.
+     */
+    private void loadChoices() {
+        addBtn.setDisable(true);
+        errorLabel.setText("Loading...");
+        CompletableFuture<ObservableList<Contact>> loadedContacts =
+                DBExecutor.supply(ReferenceDataCache::getAllContacts);
+        CompletableFuture<ObservableList<Customer>> loadedCustomers = DBExecutor.supply(DBModel::getAllCustomers);
+        CompletableFuture<ObservableList<User>> loadedUsers = DBExecutor.supply(ReferenceDataCache::getAllUsers);
+        CompletableFuture.allOf(loadedContacts, loadedCustomers, loadedUsers).whenCompleteAsync((ignored, e) -> {
+            if (e != null) {
+                errorLabel.setText("Could not load: " + DBExecutor.unwrap(e).getMessage());
+                return;
+            }
+            contacts.setAll(loadedContacts.join());
+            customers.setAll(loadedCustomers.join());
+            users.setAll(loadedUsers.join());
+            if (isUpdating) {
+                selectAppointmentChoices(appointment);
+            } else {
+                apptContact.getSelectionModel().selectFirst();
+                apptCustomer.getSelectionModel().selectFirst();
+                apptUser.getSelectionModel().selectFirst();
+            }
+            errorLabel.setText("");
+            addBtn.setDisable(false);
+        }, DBExecutor.FX_THREAD);
+    }
+
     /**
      * Switches view texts to updating and adds existing appointment data to fields
      */
     private void convertToUpdating() {
+        isUpdating = true;
+        appointment = (Appointment) Main.getPrimaryStage().getUserData();
+        mainTitle.setText("Update Appointment");
+        addBtn.setText("Update");
+        showAppointment(appointment);
+    }
+
+    /**
+     * Fills the fields with an appointment's data, except its contact, customer and user
+     * @param appt appointment to show
+     */
+    private void showAppointment(Appointment appt) {
         SimpleDateFormat hourFormat = new SimpleDateFormat("h");
         hourFormat.setTimeZone(TimeZone.getDefault());
         SimpleDateFormat minFormat = new SimpleDateFormat("mm");
         minFormat.setTimeZone(TimeZone.getDefault());
         SimpleDateFormat ampmFormat = new SimpleDateFormat("a");
         ampmFormat.setTimeZone(TimeZone.getDefault());
-        isUpdating = true;
-        appointment = (Appointment) Main.getPrimaryStage().getUserData();
-        mainTitle.setText("Update Appointment");
-        addBtn.setText("Update");
-        apptId.setText(String.valueOf(appointment.getId()));
-        apptTitle.setText(appointment.getTitle());
-        apptDesc.setText(appointment.getDescription());
-        apptLocation.setText(appointment.getLocation());
-        apptType.setText(appointment.getType());
+        apptId.setText(String.valueOf(appt.getId()));
+        apptTitle.setText(appt.getTitle());
+        apptDesc.setText(appt.getDescription());
+        apptLocation.setText(appt.getLocation());
+        apptType.setText(appt.getType());
+        LocalDate localDate = LocalDate.ofInstant(appt.getStart().toInstant(),
+                TimeZone.getDefault().toZoneId());
+        apptDate.setValue(localDate);
+        Integer startHour = Integer.parseInt(hourFormat.format(appt.getStart()));
+        apptStartHour.getSelectionModel().select(startHour);
+        String startMin = minFormat.format(appt.getStart());
+        apptStartMinute.getSelectionModel().select(startMin);
+        toggleAMPM(true, ampmFormat.format(appt.getStart()).equals("AM"));
+        Integer endHour = Integer.parseInt(hourFormat.format(appt.getEnd()));
+        apptEndHour.getSelectionModel().select(endHour);
+        String endMin = minFormat.format(appt.getEnd());
+        apptEndMinute.getSelectionModel().select(endMin);
+        toggleAMPM(false, ampmFormat.format(appt.getEnd()).equals("AM"));
+    }
+
+    /**
+     * Selects an appointment's contact, customer and user once the choices are loaded
+     * @param appointment appointment to select the choices of
+     */
+    private void selectAppointmentChoices(Appointment appointment) {
         int contactIndex = 0;
         for (int i = 0; i < contacts.size(); i++) {
             if (contacts.get(i).getId() == appointment.getContactID()) {
@@ -268,27 +334,6 @@ public class AddAppointmentViewController extends ViewController {
             }
         }
         apptUser.getSelectionModel().select(userIndex);
-        LocalDate localDate = LocalDate.ofInstant(appointment.getStart().toInstant(),
-                TimeZone.getDefault().toZoneId());
-        apptDate.setValue(localDate);
-        Integer startHour = Integer.parseInt(hourFormat.format(appointment.getStart()));
-        apptStartHour.getSelectionModel().select(startHour);
-        String startMin = minFormat.format(appointment.getStart());
-        apptStartMinute.getSelectionModel().select(startMin);
-        String startAMPM = ampmFormat.format(appointment.getStart());
-        if (startAMPM.equals("PM")) {
-            apptStartAM.setSelected(false);
-            apptStartPM.setSelected(true);
-        }
-        Integer endHour = Integer.parseInt(hourFormat.format(appointment.getEnd()));
-        apptEndHour.getSelectionModel().select(endHour);
-        String endMin = minFormat.format(appointment.getEnd());
-        apptEndMinute.getSelectionModel().select(endMin);
-        String endAMPM = ampmFormat.format(appointment.getEnd());
-        if (endAMPM.equals("PM")) {
-            apptEndAM.setSelected(false);
-            apptEndPM.setSelected(true);
-        }
     }
 
     /**
@@ -313,42 +358,127 @@ public class AddAppointmentViewController extends ViewController {
         }
         String startDateString = dateString + " " + startHourString + ":" + startMinString + " " + startAMPM;
         String endDateString = dateString + " " + endHourString + ":" + endMinString + " " + endAMPM;
+        Date start;
+        Date end;
         try {
-            validateAppointmentTime(formatter.parse(startDateString), formatter.parse(endDateString));
-            if (isUpdating) {
-                appointment.setTitle(apptTitle.getText());
-                appointment.setDescription(apptDesc.getText());
-                appointment.setLocation(apptLocation.getText());
-                appointment.setType(apptType.getText());
-                appointment.setContactID(apptContact.getValue().getId());
-                appointment.setCustomerID(apptCustomer.getValue().getId());
-                appointment.setUserID(apptUser.getValue().getId());
-                try {
-                    appointment.setStart(formatter.parse(startDateString));
-                    appointment.setEnd(formatter.parse(endDateString));
-                    DBModel.updateAppointment(appointment);
-                    exitToMenu();
-                } catch (ParseException e) {
-                    errorLabel.setText("Couldn't add dates: " + e.getMessage());
-                } catch (Exception e) {
-                    errorLabel.setText("Could not update: " + e.getMessage());
+            start = formatter.parse(startDateString);
+            end = formatter.parse(endDateString);
+            validateAppointmentTime(start, end);
+        } catch (ParseException e) {
+            errorLabel.setText("Couldn't add dates: " + e.getMessage());
+            return;
+        } catch (Exception e) {
+            errorLabel.setText(e.getMessage());
+            return;
+        }
+        int id = isUpdating ? appointment.getId() : 0;
+        Appointment saving = new Appointment(id, apptTitle.getText(), apptDesc.getText(), apptLocation.getText(),
+                apptType.getText(), start, end, apptCustomer.getValue().getId(), apptContact.getValue(),
+                apptUser.getValue().getId()).withLastUpdate(isUpdating ? appointment.getLastUpdateMillis() : 0);
+        save(saving, 0);
+    }
+
+    /**
+     * Adds or updates the appointment on a background thread and goes back to the appointments view when done
+     * @param saving appointment to save, carrying the Last_Update it was based on
+     * @param retries number of times this save has already been merged and retried
+     */
+    private void save(Appointment saving, int retries) {
+        addBtn.setDisable(true);
+        boolean updating = isUpdating;
+        DBExecutor.load(() -> {
+            checkForOverlaps(saving);
+            try {
+                if (updating) {
+                    return DBModel.updateAppointment(saving);
                 }
+                return DBModel.addAppointment(saving);
+            } catch (UpdateConflictException | AppointmentOverlapException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new Exception("Could not update: " + e.getMessage(), e);
+            }
+        }, saved -> exitToMenu(), e -> {
+            addBtn.setDisable(false);
+            if (e instanceof UpdateConflictException) {
+                resolveConflict(saving, (UpdateConflictException) e, retries);
             } else {
-                try {
-                    appointment = new Appointment(0, apptTitle.getText(), apptDesc.getText(), apptLocation.getText(),
-                            apptType.getText(), formatter.parse(startDateString), formatter.parse(endDateString),
-                            apptCustomer.getValue().getId(), apptContact.getValue(), apptUser.getValue().getId());
-                    DBModel.addAppointment(appointment);
-                    exitToMenu();
-                } catch (ParseException e) {
-                    errorLabel.setText("Couldn't add dates: " + e.getMessage());
-                } catch (Exception e) {
-                    errorLabel.setText("Could not update: " + e.getMessage());
-                }
+                errorLabel.setText(e.getMessage());
             }
-        } catch (Exception e) {
-            errorLabel.setText(e.getMessage());
+        });
+    }
+
+    /**
+     * Merges this user's edits with another user's after an update conflict.  Fields only one side changed are
+     * merged without asking and the save is retried.  If both sides changed the same field, the merged appointment
+     * is shown with this user's values for those fields, and pressing Update again keeps them.  If the appointment
+     * was deleted, the form switches to adding it back as a new appointment.
+     * @param mine appointment this user tried to save
+     * @param conflict the rejected update
+     * @param retries number of times this save has already been merged and retried
+     */
+    private void resolveConflict(Appointment mine, UpdateConflictException conflict, int retries) {
+        Appointment theirs = conflict.getLatestAppointment();
+        if (theirs == null) {
+            isUpdating = false;
+            mainTitle.setText("Add Appointment");
+            addBtn.setText("Add");
+            apptId.setText("");
+            errorLabel.setText(conflict.getMessage() + " Press Add to save it as a new appointment.");
+            return;
+        }
+        Appointment base = appointment;
+        List<String> bothChanged = new ArrayList<>();
+        List<Long> time = merge(List.of(base.getStartMillis(), base.getEndMillis()),
+                List.of(mine.getStartMillis(), mine.getEndMillis()),
+                List.of(theirs.getStartMillis(), theirs.getEndMillis()), "time", bothChanged);
+        int contactID = merge(base.getContactID(), mine.getContactID(), theirs.getContactID(), "contact",
+                bothChanged);
+        Appointment merged = new Appointment(mine.getId(),
+                merge(base.getTitle(), mine.getTitle(), theirs.getTitle(), "title", bothChanged),
+                merge(base.getDescription(), mine.getDescription(), theirs.getDescription(), "description",
+                        bothChanged),
+                merge(base.getLocation(), mine.getLocation(), theirs.getLocation(), "location", bothChanged),
+                merge(base.getType(), mine.getType(), theirs.getType(), "type", bothChanged),
+                time.get(0), time.get(1),
+                merge(base.getCustomerID(), mine.getCustomerID(), theirs.getCustomerID(), "customer", bothChanged),
+                contactID == mine.getContactID() ? mine.getContact() : theirs.getContact(),
+                merge(base.getUserID(), mine.getUserID(), theirs.getUserID(), "user", bothChanged),
+                theirs.getLastUpdateMillis());
+        appointment = theirs;
+        if (bothChanged.isEmpty() && retries < MAX_MERGE_RETRIES) {
+            errorLabel.setText("Merging with changes made by another user...");
+            save(merged, retries + 1);
+            return;
+        }
+        showAppointment(merged);
+        selectAppointmentChoices(merged);
+        if (bothChanged.isEmpty()) {
+            errorLabel.setText(conflict.getMessage() + " Their changes were merged in. Press Update to save.");
+        } else {
+            errorLabel.setText(conflict.getMessage() + " You both changed " + String.join(", ", bothChanged) +
+                    "; your values are shown. Press Update to keep them.");
+        }
+    }
+
+    /**
+     * Picks one field's value for a three-way merge
+     * @param base value both users started from
+     * @param mine value this user saved
+     * @param theirs value the other user saved
+     * @param field name of the field, added to bothChanged if both users changed it differently
+     * @param bothChanged fields both users changed
+     * @param <T> type of the field
+     * @return this user's value if they changed it, otherwise the other user's
+     */
+    private static <T> T merge(T base, T mine, T theirs, String field, List<String> bothChanged) {
+        if (Objects.equals(mine, base)) {
+            return theirs;
+        }
+        if (!Objects.equals(theirs, base) && !Objects.equals(theirs, mine)) {
+            bothChanged.add(field);
         }
+        return mine;
     }
 
     /**
@@ -374,13 +504,7 @@ public class AddAppointmentViewController extends ViewController {
      */
     private void validateAppointmentTime(Date start, Date end) throws Exception {
         if (start.before(end)) {
-            if (validBusinessHours(start) && validBusinessHours(end)) {
-                String startString = TimeFormatter.getTimeStringUTC(start);
-                String endString = TimeFormatter.getTimeStringUTC(end);
-                if (DBModel.hasOverlapAppointments(startString, endString)) {
-                    throw new Exception("Appointment overlaps with an existing appointment.");
-                }
-            } else {
+            if (!validBusinessHours(start) || !validBusinessHours(end)) {
                 throw new Exception("Appointment must be within business hours (8am-10pm EST).");
             }
         } else {
@@ -388,6 +512,22 @@ public class AddAppointmentViewController extends ViewController {
         }
     }
 
+    /**
+     * Checks that the appointment doesn't overlap any other appointment in the in-memory index, so most overlaps
+     * are caught without a database round trip.  DBModel checks the customer's appointments again in the save
+     * transaction.  Runs on a background thread.
+     * @param appt appointment being saved
+     * @throws AppointmentOverlapException if the appointment overlaps another
+     * @throws Exception if the appointments can't be loaded
+     */
+    private void checkForOverlaps(Appointment appt) throws Exception {
+        List<Integer> overlaps = DBModel.getOverlappingAppointments(appt.getStart(), appt.getEnd());
+        overlaps.remove(Integer.valueOf(appt.getId()));
+        if (!overlaps.isEmpty()) {
+            throw new AppointmentOverlapException(overlaps.get(0));
+        }
+    }
+
     /**
      * Checks if the given date is within the business hours (8am-10pm EST)
      * @return true if within hours, false if outside
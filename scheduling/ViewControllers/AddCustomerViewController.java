@@ -1,5 +1,6 @@
 package scheduling.ViewControllers;
 
+import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
@@ -9,9 +10,13 @@ import javafx.scene.control.TextField;
 import scheduling.Main;
 import scheduling.Model.Country;
 import scheduling.Model.Customer;
+import scheduling.Model.DBExecutor;
 import scheduling.Model.DBModel;
 import scheduling.Model.Division;
+import scheduling.Model.ReferenceDataCache;
+import scheduling.Model.UpdateConflictException;
 import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * View Controller class for adding or updating a customer
@@ -93,12 +98,12 @@ public class AddCustomerViewController extends ViewController {
     /**
      * List of all countries
      */
-    private final ObservableList<Country> countries = DBModel.getAllCountries();
+    private final ObservableList<Country> countries = FXCollections.observableArrayList();
 
     /**
      *  HashMap of all divisions
      */
-    private final HashMap<Integer, ObservableList<Division>> divisionsMap = DBModel.getAllDivisions();
+    private final HashMap<Integer, ObservableList<Division>> divisionsMap = new HashMap<>();
 
     /**
      * List of all divisions
@@ -115,21 +120,53 @@ public class AddCustomerViewController extends ViewController {
      * All .setOnAction methods use lambdas to remove the override handle function and replace it with a single line.
      */
     public void initialize() {
-        divisions = divisionsMap.get(countries.get(0).getId());
         cusCountry.setConverter(Country.countryStringConverter);
         cusDivision.setConverter(Division.divisionStringConverter);
-        cusDivision.setItems(divisions);
-        cusDivision.getSelectionModel().selectFirst();
         cusCountry.setItems(countries);
-        cusCountry.getSelectionModel().selectFirst();
         if (Main.getPrimaryStage().getUserData() != null) {
             convertToUpdating();
         }
+        loadChoices();
         backBtn.setOnAction(actionEvent -> exitToMenu());
         cusCountry.setOnAction(actionEvent -> countrySelectAction());
         addBtn.setOnAction(actionEvent -> addBtnAction());
     }
 
+    /**
+     * Loads the country and division choices on a background thread.  The add/update button stays disabled until
+     * they arrive.
+     */
+    private void loadChoices() {
+        addBtn.setDisable(true);
+        errorLabel.setText("Loading...");
+        CompletableFuture<ObservableList<Country>> loadedCountries =
+                DBExecutor.supply(ReferenceDataCache::getAllCountries);
+        CompletableFuture<HashMap<Integer, ObservableList<Division>>> loadedDivisions =
+                DBExecutor.supply(ReferenceDataCache::getAllDivisions);
+        CompletableFuture.allOf(loadedCountries, loadedDivisions).whenCompleteAsync((ignored, e) -> {
+            if (e != null || loadedCountries.join().isEmpty()) {
+                errorLabel.setText("Could not load countries" + (e != null ?
+                        ": " + DBExecutor.unwrap(e).getMessage() : "."));
+                return;
+            }
+            divisionsMap.putAll(loadedDivisions.join());
+            countries.setAll(loadedCountries.join());
+            if (isUpdating) {
+                cusCountry.getSelectionModel().select(getIndexFromCountries(customer.getCountry().getId()));
+                divisions = divisionsMap.get(customer.getCountry().getId());
+                cusDivision.setItems(divisions);
+                cusDivision.getSelectionModel().select(getIndexFromDivisions(customer.getDivision().getId()));
+            } else {
+                divisions = divisionsMap.get(countries.get(0).getId());
+                cusDivision.setItems(divisions);
+                cusDivision.getSelectionModel().selectFirst();
+                cusCountry.getSelectionModel().selectFirst();
+            }
+            errorLabel.setText("");
+            addBtn.setDisable(false);
+        }, DBExecutor.FX_THREAD);
+    }
+
     /**
      * Switches view texts to updating and adds existing customer data to fields
      */
@@ -143,39 +180,55 @@ public class AddCustomerViewController extends ViewController {
         cusAddress.setText(customer.getAddress());
         cusPhone.setText(customer.getPhone());
         cusPostal.setText(customer.getPostalCode());
-        divisions = divisionsMap.get(customer.getCountry().getId());
-        cusDivision.setItems(divisions);
-        cusDivision.getSelectionModel().select(getIndexFromDivisions(customer.getDivision().getId()));
-        cusCountry.getSelectionModel().select(getIndexFromCountries(customer.getCountry().getId()));
     }
 
     /**
      * Validates field data and adds/updates the database with the customer
      */
     private void addBtnAction() {
-        if (isUpdating) {
-            customer.setName(cusName.getText());
-            customer.setAddress(cusAddress.getText());
-            customer.setPostalCode(cusPostal.getText());
-            customer.setPhone(cusPhone.getText());
-            customer.setDivision(cusDivision.getSelectionModel().getSelectedItem());
-            customer.setCountry(cusCountry.getSelectionModel().getSelectedItem());
-            try {
-                DBModel.updateCustomer(customer);
-                exitToMenu();
-            } catch (Exception e) {
-                errorLabel.setText("Could not update: " + e.getMessage());
+        int id = isUpdating ? customer.getId() : 0;
+        Customer saving = new Customer(id, cusName.getText(), cusAddress.getText(), cusPostal.getText(),
+                cusPhone.getText(), cusDivision.getSelectionModel().getSelectedItem(),
+                cusCountry.getSelectionModel().getSelectedItem());
+        boolean updating = isUpdating;
+        if (updating) {
+            saving.setLastUpdateMillis(customer.getLastUpdateMillis());
+        }
+        String failMessage = updating ? "Could not update: " : "Could not add: ";
+        addBtn.setDisable(true);
+        DBExecutor.load(() -> {
+            if (updating) {
+                DBModel.updateCustomer(saving);
+            } else {
+                DBModel.addCustomer(saving);
             }
-        } else {
-            customer = new Customer(0, cusName.getText(), cusAddress.getText(), cusPostal.getText(),
-                    cusPhone.getText(), cusDivision.getSelectionModel().getSelectedItem(),
-                    cusCountry.getSelectionModel().getSelectedItem());
-            try {
-                DBModel.addCustomer(customer);
-                exitToMenu();
-            } catch (Exception e) {
-                errorLabel.setText("Could not add: " + e.getMessage());
+            return saving;
+        }, saved -> exitToMenu(), e -> {
+            addBtn.setDisable(false);
+            if (e instanceof UpdateConflictException) {
+                resolveConflict((UpdateConflictException) e);
+            } else {
+                errorLabel.setText(failMessage + e.getMessage());
             }
+        });
+    }
+
+    /**
+     * Handles a customer changed or deleted by another user since the form was opened.  The form keeps this
+     * user's values and pressing the button again saves them over the other user's changes, or adds the customer
+     * back if it was deleted.
+     * @param conflict the rejected update
+     */
+    private void resolveConflict(UpdateConflictException conflict) {
+        if (conflict.isDeleted()) {
+            isUpdating = false;
+            mainTitle.setText("Add Customer");
+            addBtn.setText("Add");
+            cusId.setText("");
+            errorLabel.setText(conflict.getMessage() + " Press Add to save it as a new customer.");
+        } else {
+            customer = conflict.getLatestCustomer();
+            errorLabel.setText(conflict.getMessage() + " Press Update again to replace their changes.");
         }
     }
 
@@ -7,12 +7,17 @@ import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import scheduling.Main;
 import scheduling.Model.Appointment;
+import scheduling.Model.DBExecutor;
 import scheduling.Model.DBModel;
+import scheduling.Model.SyncChanges;
+import scheduling.Model.SyncService;
+import java.sql.SQLException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.time.*;
 import java.time.temporal.TemporalAdjusters;
 import java.util.Calendar;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.TimeZone;
 
@@ -107,7 +112,7 @@ public class AppointmentViewController extends ApptTableViewController {
     private Label errorLabel;
 
     /**
-     * List of appointments to display
+     * Appointments in the displayed week/month
      */
     private ObservableList<Appointment> appointments;
 
@@ -131,6 +136,17 @@ public class AppointmentViewController extends ApptTableViewController {
      */
     private boolean showingWeek = true;
 
+    /**
+     * True once the appointment store has loaded, after which each week/month is filtered from memory on the
+     * JavaFX thread
+     */
+    private boolean storeLoaded = false;
+
+    /**
+     * True once applyChanges is registered with the sync service
+     */
+    private boolean listening = false;
+
     /**
      * Formatter for standard date
      */
@@ -157,12 +173,8 @@ public class AppointmentViewController extends ApptTableViewController {
         apptContactCol.setCellValueFactory(new PropertyValueFactory<>("contactName"));
         apptTypeCol.setCellValueFactory(new PropertyValueFactory<>("type"));
         apptUserIDCol.setCellValueFactory(new PropertyValueFactory<>("userID"));
-        try {
-            appointments = DBModel.getAllAppointments();
-            updateTable();
-        } catch (Exception e) {
-            errorLabel.setText(e.getMessage());
-        }
+        appointments = FXCollections.observableArrayList();
+        appointmentTableView.setItems(appointments);
         deleteBtn.setOnAction(actionEvent -> deleteBtnAction());
         backBtn.setOnAction(actionEvent -> exitToMenu());
         prevBtn.setOnAction(actionEvent -> prevBtnAction());
@@ -173,6 +185,20 @@ public class AppointmentViewController extends ApptTableViewController {
         updateBtn.setOnAction(actionEvent -> updateBtnAction());
     }
 
+    /**
+     * Loads the displayed week/month each time the view is shown, and starts following other clients' changes the
+     * first time
+     */
+    @Override
+    protected void refresh() {
+        if (!listening) {
+            SyncService.addListener(this::applyChanges);
+            listening = true;
+        }
+        errorLabel.setText("");
+        updateTable();
+    }
+
     /**
      * Sets user data to selected appointment and loads add appointment scene
      */
@@ -192,14 +218,19 @@ public class AppointmentViewController extends ApptTableViewController {
     private void deleteBtnAction() {
         appointment = appointmentTableView.getSelectionModel().getSelectedItem();
         if (appointment!= null) {
-            try {
-                DBModel.deleteAppointment(appointment);
-                appointments.remove(appointment);
-                updateTable();
-                errorLabel.setText(appointment.getType() + " appointment " + appointment.getId() + " canceled.");
-            } catch (Exception e) {
+            Appointment deleting = appointment;
+            deleteBtn.setDisable(true);
+            DBExecutor.load(() -> {
+                DBModel.deleteAppointment(deleting);
+                return deleting;
+            }, deleted -> {
+                deleteBtn.setDisable(false);
+                appointments.remove(deleted);
+                errorLabel.setText(deleted.getType() + " appointment " + deleted.getId() + " canceled.");
+            }, e -> {
+                deleteBtn.setDisable(false);
                 errorLabel.setText("Could not remove: " + e.getMessage());
-            }
+            });
         } else {
             errorLabel.setText("Please select a customer.");
         }
@@ -287,16 +318,71 @@ public class AppointmentViewController extends ApptTableViewController {
     }
 
     /**
-     * Filters appointments by the display week/month and sets the tables items
+     * Sets the tables items to the appointments in the display week/month.  The appointment store is loaded on a
+     * background thread the first time; after that each week/month is read from memory.
      */
     private void updateTable() {
-        ObservableList<Appointment> filteredAppointments = FXCollections.observableArrayList();
-        for (Appointment appt : appointments) {
-            if (appt.getStart().after(displayStartDate) && appt.getStart().before(displayEndDate)) {
-                filteredAppointments.add(appt);
+        if (storeLoaded) {
+            showWindow();
+            return;
+        }
+        appointmentTableView.setPlaceholder(new Label("Loading appointments..."));
+        DBExecutor.load(() -> {
+            DBModel.preloadAppointments();
+            return true;
+        }, loaded -> {
+            storeLoaded = true;
+            appointmentTableView.setPlaceholder(new Label("No appointments in this period."));
+            showWindow();
+        }, e -> errorLabel.setText(e.getMessage()));
+    }
+
+    /**
+     * Sets the tables items from the loaded appointment store
+     */
+    private void showWindow() {
+        try {
+            populateTable(DBModel.getAppointmentsInRange(displayStartDate, displayEndDate));
+        } catch (SQLException e) {
+            errorLabel.setText(e.getMessage());
+        }
+    }
+
+    /**
+     * Patches the displayed week/month with appointments other clients added, updated or deleted
+     * @param changes changes pulled by the sync service
+     */
+    private void applyChanges(SyncChanges changes) {
+        long windowStart = displayStartDate.getTime();
+        long windowEnd = displayEndDate.getTime();
+        appointments.removeIf(appt -> changes.getDeletedAppointments().containsKey(appt.getId()));
+        for (Appointment changed : changes.getAppointments()) {
+            boolean inWindow = changed.getStartMillis() >= windowStart && changed.getStartMillis() < windowEnd;
+            int row = indexOf(changed.getId());
+            if (row >= 0 && inWindow) {
+                appointments.set(row, changed);
+            } else if (row >= 0) {
+                appointments.remove(row);
+            } else if (inWindow) {
+                appointments.add(changed);
+            }
+        }
+        FXCollections.sort(appointments, Comparator.comparingLong(Appointment::getStartMillis));
+        appointmentTableView.sort();
+    }
+
+    /**
+     * Finds a displayed appointment
+     * @param id Appointment_ID
+     * @return the appointment's row, or -1 if it isn't displayed
+     */
+    private int indexOf(int id) {
+        for (int row = 0; row < appointments.size(); row++) {
+            if (appointments.get(row).getId() == id) {
+                return row;
             }
         }
-        appointmentTableView.setItems(filteredAppointments);
+        return -1;
     }
 
     /**
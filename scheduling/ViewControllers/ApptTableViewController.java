@@ -1,5 +1,7 @@
 package scheduling.ViewControllers;
 
+import helper.TablePopulateEvent;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.fxml.FXML;
 import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
@@ -7,7 +9,7 @@ import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
 import scheduling.Model.Appointment;
 import scheduling.Model.TimeFormatter;
-import java.util.Date;
+import java.util.List;
 
 /**
  * Base view controller class for a appointment table view
@@ -43,13 +45,13 @@ public class ApptTableViewController extends ViewController {
      * Appointment table view start date column
      */
     @FXML
-    protected TableColumn<Appointment, Date> apptStartCol;
+    protected TableColumn<Appointment, Long> apptStartCol;
 
     /**
      * Appointment table view end date column
      */
     @FXML
-    protected TableColumn<Appointment, Date> apptEndCol;
+    protected TableColumn<Appointment, Long> apptEndCol;
 
     /**
      * Appointment table view Customer ID column
@@ -59,37 +61,56 @@ public class ApptTableViewController extends ViewController {
 
     /**
      * Sets table view columns and uses lambdas for date column formatting
-     * Lambda use here in order to format the time of the start and end time columns
+     * Lambda use here in order to format the time of the start and end time columns.  The time columns read the
+     * appointment's epoch milliseconds directly so no Date is created per cell.
      */
     public void initialize() {
         apptIdCol.setCellValueFactory(new PropertyValueFactory<>("id"));
         apptTitleCol.setCellValueFactory(new PropertyValueFactory<>("title"));
         apptDescCol.setCellValueFactory(new PropertyValueFactory<>("description"));
-        apptStartCol.setCellValueFactory(new PropertyValueFactory<>("start"));
+        apptStartCol.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getStartMillis()));
         apptStartCol.setCellFactory(appointmentDateTableColumn -> new TableCell<>() {
             @Override
-            protected void updateItem(Date date, boolean b) {
-                super.updateItem(date, b);
-                if (b) {
+            protected void updateItem(Long time, boolean b) {
+                super.updateItem(time, b);
+                if (b || time == null) {
                     setText(null);
                 } else {
-                    this.setText(TimeFormatter.getTimeStringForDisplay(date));
+                    this.setText(TimeFormatter.getTimeStringForDisplay(time));
                 }
             }
         });
-        apptEndCol.setCellValueFactory(new PropertyValueFactory<>("end"));
+        apptEndCol.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(cell.getValue().getEndMillis()));
         apptEndCol.setCellFactory(appointmentDateTableColumn -> new TableCell<>() {
             @Override
-            protected void updateItem(Date date, boolean b) {
-                super.updateItem(date, b);
-                if (b) {
+            protected void updateItem(Long time, boolean b) {
+                super.updateItem(time, b);
+                if (b || time == null) {
                     setText(null);
                 } else {
-                    this.setText(TimeFormatter.getTimeStringForDisplay(date));
+                    this.setText(TimeFormatter.getTimeStringForDisplay(time));
                 }
             }
         });
         apptCustIDCol.setCellValueFactory(new PropertyValueFactory<>("customerID"));
     }
 
+    /**
+     * Replaces the rows of the appointment table and lays it out right away, so a TablePopulateEvent covers the
+     * cells being built as well as the list change
+     * @param appointments rows to show
+     */
+    protected void populateTable(List<Appointment> appointments) {
+        TablePopulateEvent event = new TablePopulateEvent();
+        event.begin();
+        appointmentTableView.getItems().setAll(appointments);
+        appointmentTableView.layout();
+        event.end();
+        if (event.shouldCommit()) {
+            event.view = getClass().getSimpleName();
+            event.rows = appointments.size();
+            event.commit();
+        }
+    }
+
 }
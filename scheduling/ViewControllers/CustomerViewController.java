@@ -1,5 +1,6 @@
 package scheduling.ViewControllers;
 
+import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
@@ -9,7 +10,10 @@ import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
 import scheduling.Main;
 import scheduling.Model.Customer;
+import scheduling.Model.DBExecutor;
 import scheduling.Model.DBModel;
+import scheduling.Model.SyncChanges;
+import scheduling.Model.SyncService;
 
 /**
  * View Controller class for viewing or deleting customers
@@ -93,6 +97,11 @@ public class CustomerViewController extends ViewController {
      */
     private Customer customer;
 
+    /**
+     * True once applyChanges is registered with the sync service
+     */
+    private boolean listening = false;
+
     /**
      * Sets field data and button actions using lambdas
      * All .setOnAction methods use lambdas to remove the override handle function and replace it with a single line.
@@ -103,12 +112,8 @@ public class CustomerViewController extends ViewController {
         customerAddressCol.setCellValueFactory(new PropertyValueFactory<>("address"));
         customerPostalCol.setCellValueFactory(new PropertyValueFactory<>("postalCode"));
         customerPhoneCol.setCellValueFactory(new PropertyValueFactory<>("phone"));
-        try {
-            customers = DBModel.getAllCustomers();
-            customerTableView.setItems(customers);
-        } catch (Exception e) {
-            errorLabel.setText(e.getMessage());
-        }
+        customers = FXCollections.observableArrayList();
+        customerTableView.setItems(customers);
         addBtn.setOnAction(actionEvent -> loadScene("AddCustomer.fxml", 600));
         updateBtn.setOnAction(actionEvent -> {
             customer = customerTableView.getSelectionModel().getSelectedItem();
@@ -122,18 +127,70 @@ public class CustomerViewController extends ViewController {
         deleteBtn.setOnAction(actionEvent -> {
             customer = customerTableView.getSelectionModel().getSelectedItem();
             if (customer != null) {
-                try {
-                    DBModel.deleteCustomer(customer);
-                    customers.remove(customer);
+                Customer deleting = customer;
+                deleteBtn.setDisable(true);
+                DBExecutor.load(() -> {
+                    DBModel.deleteCustomer(deleting);
+                    return deleting;
+                }, deleted -> {
+                    deleteBtn.setDisable(false);
+                    customers.remove(deleted);
                     customerTableView.refresh();
-                    errorLabel.setText("Customer " + customer.getId() + " successfully deleted.");
-                } catch (Exception e) {
+                    errorLabel.setText("Customer " + deleted.getId() + " successfully deleted.");
+                }, e -> {
+                    deleteBtn.setDisable(false);
                     errorLabel.setText("Could not remove: " + e.getMessage());
-                }
+                });
             } else {
                 errorLabel.setText("Please select a customer.");
             }
         });
         backBtn.setOnAction(actionEvent -> exitToMenu());
     }
+
+    /**
+     * Loads the customer list each time the view is shown, and starts following other clients' changes the first
+     * time
+     */
+    @Override
+    protected void refresh() {
+        if (!listening) {
+            SyncService.addListener(this::applyChanges);
+            listening = true;
+        }
+        errorLabel.setText("");
+        loadCustomers();
+    }
+
+    /**
+     * Loads every customer on a background thread and sets the tables items
+     */
+    private void loadCustomers() {
+        customerTableView.setPlaceholder(new Label("Loading customers..."));
+        DBExecutor.load(DBModel::getAllCustomers, loaded -> {
+            customers.setAll(loaded);
+            customerTableView.setPlaceholder(new Label("No customers found."));
+        }, e -> errorLabel.setText(e.getMessage()));
+    }
+
+    /**
+     * Patches the customer list with customers other clients added, updated or deleted
+     * @param changes changes pulled by the sync service
+     */
+    private void applyChanges(SyncChanges changes) {
+        customers.removeIf(customer -> changes.getDeletedCustomers().containsKey(customer.getId()));
+        for (Customer changed : changes.getCustomers()) {
+            boolean replaced = false;
+            for (int row = 0; row < customers.size() && !replaced; row++) {
+                if (customers.get(row).getId() == changed.getId()) {
+                    customers.set(row, changed);
+                    replaced = true;
+                }
+            }
+            if (!replaced) {
+                customers.add(changed);
+            }
+        }
+        customerTableView.sort();
+    }
 }
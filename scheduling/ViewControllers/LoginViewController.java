@@ -1,11 +1,14 @@
 package scheduling.ViewControllers;
 
+import helper.JDBC;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 import scheduling.Main;
+import scheduling.Model.DBExecutor;
 import scheduling.Model.DBModel;
+import scheduling.Model.SyncService;
 import java.time.ZoneId;
 import java.util.Locale;
 import java.util.ResourceBundle;
@@ -83,14 +86,34 @@ public class LoginViewController extends ViewController {
         usernameLabel.setText(loginRb.getString("user"));
         passwordLabel.setText(loginRb.getString("password"));
 
-        loginBtn.setOnAction(actionEvent -> {
-            try {
-                Main.setUser(DBModel.login(username.getText(), password.getText()));
-                loadScene("MainMenu.fxml", 600);
-            } catch (Exception e) {
-                errorLabel.setText(e.getMessage());
+        loginBtn.setOnAction(actionEvent -> loginBtnAction());
+        exitBtn.setOnAction(actionEvent -> exitToMenu());
+        String dbErr = loginRb.getString("dbErr");
+        JDBC.whenConnected().whenCompleteAsync((ignored, e) -> {
+            if (e != null) {
+                errorLabel.setText(dbErr + " " + DBExecutor.unwrap(e).getMessage());
             }
+        }, DBExecutor.FX_THREAD);
+        preloadData();
+    }
+
+    /**
+     * Attempts to log in on a background thread and loads the main menu when successful, then builds the other
+     * cached views in idle moments.  Change sync starts once the sync tables have been migrated.
+     */
+    private void loginBtnAction() {
+        String user = username.getText();
+        String pw = password.getText();
+        loginBtn.setDisable(true);
+        errorLabel.setText("");
+        DBExecutor.load(() -> DBModel.login(user, pw), loggedInUser -> {
+            Main.setUser(loggedInUser);
+            Main.whenSyncTablesReady().thenRun(SyncService::start);
+            loadScene("MainMenu.fxml", 600);
+            preloadScenes();
+        }, e -> {
+            loginBtn.setDisable(false);
+            errorLabel.setText(e.getMessage());
         });
-        exitBtn.setOnAction(actionEvent -> exitToMenu());
     }
 }
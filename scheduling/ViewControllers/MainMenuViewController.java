@@ -1,9 +1,11 @@
 package scheduling.ViewControllers;
 
+import helper.FlightRecording;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import scheduling.Model.Appointment;
+import scheduling.Model.DBExecutor;
 import scheduling.Model.DBModel;
 import scheduling.Model.TimeFormatter;
 import java.util.List;
@@ -38,6 +40,12 @@ public class MainMenuViewController extends ViewController {
     @FXML
     private Button reportsBtn;
 
+    /**
+     * Button to capture a flight recording for troubleshooting
+     */
+    @FXML
+    private Button recordBtn;
+
     /**
      * Label to display current and upcoming appointments
      */
@@ -45,8 +53,12 @@ public class MainMenuViewController extends ViewController {
     private Label apptNotify;
 
     /**
-     * Sets field data and button actions using lambdas.  Checks for upcoming appointments and adds them to a apptNotify
-     * label.
+     * True once the reminder scheduler is pushing notices to apptNotify
+     */
+    private boolean watching = false;
+
+    /**
+     * Sets field data and button actions using lambdas
      * All .setOnAction methods use lambdas to remove the override handle function and replace it with a single line.
      */
     public void initialize() {
@@ -54,28 +66,77 @@ public class MainMenuViewController extends ViewController {
         customersBtn.setOnAction(actionEvent -> loadScene("Customers.fxml", 600));
         appointmentsBtn.setOnAction(actionEvent -> loadScene("Appointments.fxml", 1000));
         reportsBtn.setOnAction(actionEvent -> loadScene("Reports.fxml", 700));
-        Appointment currentAppt = DBModel.getCurrentAppointment();
-        List<Appointment> soonAppts = DBModel.getSoonAppointments();
+        recordBtn.setOnAction(actionEvent -> recordBtnAction());
+    }
+
+    /**
+     * Records a minute of flight recorder data to a file in the working directory.  The button shows progress and
+     * the file name, and stays disabled while recording.
+     */
+    private void recordBtnAction() {
+        recordBtn.setDisable(true);
+        recordBtn.setText("Recording...");
+        FlightRecording.record(FlightRecording.DEFAULT_SECONDS).whenCompleteAsync((file, e) -> {
+            recordBtn.setDisable(false);
+            recordBtn.setText(e == null ? "Saved " + file.getName() : "Recording failed");
+        }, DBExecutor.FX_THREAD);
+    }
+
+    /**
+     * Watches for upcoming appointments and keeps them in the apptNotify label, starting again if the last attempt
+     * failed
+     */
+    @Override
+    protected void refresh() {
+        if (!watching) {
+            checkAppointments();
+        }
+    }
+
+    /**
+     * Starts the reminder scheduler on a background thread.  It updates apptNotify whenever an appointment starts,
+     * ends or comes within 15 minutes, without querying the database again.
+     */
+    private void checkAppointments() {
+        apptNotify.setText("Checking for upcoming appointments...");
+        watching = true;
+        DBExecutor.load(() -> {
+            DBModel.watchReminders((current, soon) ->
+                    DBExecutor.FX_THREAD.execute(() -> apptNotify.setText(buildNotice(current, soon))));
+            return null;
+        }, ignored -> { }, e -> {
+            watching = false;
+            apptNotify.setText("Could not check appointments: " + e.getMessage());
+        });
+    }
+
+    /**
+     * Builds the text listing the current and upcoming appointments
+     * @return the notice text
+     * @param currentAppt appointment in progress, or null
+     * @param soonAppts appointments starting soon
+     */
+    private String buildNotice(Appointment currentAppt, List<Appointment> soonAppts) {
         StringBuilder appointmentNotice = new StringBuilder();
         if (currentAppt != null) {
             appointmentNotice.append("NOW: Appointment ")
                     .append(currentAppt.getId())
-                    .append(" from ").append(TimeFormatter.getTimeStringForDisplay(currentAppt.getStart()))
-                    .append(" to ").append(TimeFormatter.getTimeStringForDisplay(currentAppt.getEnd()))
+                    .append(" from ").append(TimeFormatter.getTimeStringForDisplay(currentAppt.getStartMillis()))
+                    .append(" to ").append(TimeFormatter.getTimeStringForDisplay(currentAppt.getEndMillis()))
                     .append("\n\n");
         }
         if (soonAppts.size() > 0) {
             for (Appointment appt : soonAppts) {
                 appointmentNotice.append("SOON: Appointment ")
                         .append(appt.getId())
-                        .append(" from ").append(TimeFormatter.getTimeStringForDisplay(appt.getStart()))
-                        .append(" to ").append(TimeFormatter.getTimeStringForDisplay(appt.getEnd()))
+                        .append(" from ").append(TimeFormatter.getTimeStringForDisplay(appt.getStartMillis()))
+                        .append(" to ").append(TimeFormatter.getTimeStringForDisplay(appt.getEndMillis()))
                         .append("\n\n");
             }
         }
         if (appointmentNotice.toString().equals("")) {
             appointmentNotice.append("There are no upcoming appointments.");
         }
-        apptNotify.setText(appointmentNotice.toString());
+        return appointmentNotice.toString();
     }
 }
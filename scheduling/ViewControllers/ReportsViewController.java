@@ -8,8 +8,7 @@ import javafx.scene.control.ChoiceBox;
 import javafx.scene.control.Label;
 import scheduling.Model.*;
 import java.text.DateFormatSymbols;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * View Controller class for displaying various reports
@@ -77,6 +76,11 @@ public class ReportsViewController extends ApptTableViewController {
     @FXML
     private Label r3ReportLabel;
 
+    /**
+     * True once r2ApplyChanges is registered with the sync service
+     */
+    private boolean listening = false;
+
     /**
      * Runs report setup functions
      */
@@ -89,14 +93,48 @@ public class ReportsViewController extends ApptTableViewController {
         r3Setup();
     }
 
+    /**
+     * Loads report choices and the selected contact's schedule each time the reports view is shown, and starts
+     * following other clients' changes the first time
+     */
+    @Override
+    protected void refresh() {
+        if (!listening) {
+            SyncService.addListener(this::r2ApplyChanges);
+            listening = true;
+        }
+        r1LoadChoices();
+        r2LoadAppointments();
+        r3ReportLabel.setText("");
+    }
+
+    /**
+     * Loads the years and types with appointments into report 1's choices on a background thread
+     */
+    private void r1LoadChoices() {
+        r1Run.setDisable(true);
+        r1ReportLabel.setText("Loading...");
+        CompletableFuture<ObservableList<Integer>> years = DBExecutor.supply(DBModel::getAllApptYears);
+        CompletableFuture<ObservableList<String>> types = DBExecutor.supply(DBModel::getAllApptTypes);
+        CompletableFuture.allOf(years, types).whenCompleteAsync((ignored, e) -> {
+            if (e != null) {
+                r1ReportLabel.setText("Could not load: " + DBExecutor.unwrap(e).getMessage());
+                return;
+            }
+            r1Year.setItems(years.join());
+            r1Year.getSelectionModel().selectFirst();
+            r1Type.setItems(types.join());
+            r1Type.getSelectionModel().selectFirst();
+            r1ReportLabel.setText("");
+            r1Run.setDisable(false);
+        }, DBExecutor.FX_THREAD);
+    }
+
     /**
      * Sets up report 1 buttons and fields using lambdas
      * All .setOnAction methods use lambdas to remove the override handle function and replace it with a single line.
      */
     private void r1Setup() {
-        ObservableList<Integer> years = DBModel.getAllApptYears();
-        r1Year.setItems(years);
-        r1Year.getSelectionModel().selectFirst();
         ObservableList<String> months = FXCollections.observableArrayList();
         months.addAll(new DateFormatSymbols().getMonths());
         if (months.size() == 13) {
@@ -104,23 +142,31 @@ public class ReportsViewController extends ApptTableViewController {
         }
         r1Month.setItems(months);
         r1Month.getSelectionModel().selectFirst();
-        ObservableList<String> types = DBModel.getAllApptTypes();
-        r1Type.setItems(types);
-        r1Type.getSelectionModel().selectFirst();
         r1Run.setOnAction(actionEvent -> {
+            if (r1Year.getValue() == null || r1Type.getValue() == null) {
+                r1ReportLabel.setText("There are no appointments to report on.");
+                return;
+            }
             int year = r1Year.getValue();
             String month = r1Month.getValue();
             String type = r1Type.getValue();
-            int apptsFound = DBModel.getCountOfAppointments(month, year, type);
-            String reportData;
-            if (apptsFound > 1) {
-                reportData = "There are " + apptsFound + " " + type + " appointments in " + month + ", " + year + ".";
-            } else if (apptsFound == 1) {
-                reportData = "There is 1 " + type + " appointment in " + month + ", " + year + ".";
-            } else {
-                reportData = "There are no " + type + " appointments in " + month + ", " + year + ".";
-            }
-            r1ReportLabel.setText(reportData);
+            r1Run.setDisable(true);
+            DBExecutor.load(() -> DBModel.getCountOfAppointments(month, year, type), apptsFound -> {
+                r1Run.setDisable(false);
+                String reportData;
+                if (apptsFound > 1) {
+                    reportData = "There are " + apptsFound + " " + type + " appointments in " + month + ", " +
+                            year + ".";
+                } else if (apptsFound == 1) {
+                    reportData = "There is 1 " + type + " appointment in " + month + ", " + year + ".";
+                } else {
+                    reportData = "There are no " + type + " appointments in " + month + ", " + year + ".";
+                }
+                r1ReportLabel.setText(reportData);
+            }, e -> {
+                r1Run.setDisable(false);
+                r1ReportLabel.setText("Could not run report: " + e.getMessage());
+            });
         });
     }
 
@@ -129,13 +175,50 @@ public class ReportsViewController extends ApptTableViewController {
      * All .setOnAction methods use lambdas to remove the override handle function and replace it with a single line.
      */
     private void r2Setup() {
-        ObservableList<Contact> contacts = DBModel.getAllContacts();
         r2Contact.setConverter(Contact.contactStringConverter);
-        r2Contact.setItems(contacts);
-        r2Contact.setOnAction(actionEvent -> {
-            Contact contact = r2Contact.getValue();
-            appointmentTableView.setItems(DBModel.getAppointmentsForContact(contact));
-        });
+        DBExecutor.load(ReferenceDataCache::getAllContacts, r2Contact::setItems,
+                e -> appointmentTableView.setPlaceholder(new Label("Could not load contacts: " + e.getMessage())));
+        r2Contact.setOnAction(actionEvent -> r2LoadAppointments());
+    }
+
+    /**
+     * Reloads the selected contact's schedule if another client changed one of its appointments
+     * @param changes changes pulled by the sync service
+     */
+    private void r2ApplyChanges(SyncChanges changes) {
+        Contact contact = r2Contact.getValue();
+        if (contact == null) {
+            return;
+        }
+        boolean affected = false;
+        for (Appointment changed : changes.getAppointments()) {
+            affected |= changed.getContactID() == contact.getId();
+        }
+        for (Appointment shown : appointmentTableView.getItems()) {
+            affected |= changes.getDeletedAppointments().containsKey(shown.getId()) ||
+                    changes.getAppointments().stream().anyMatch(changed -> changed.getId() == shown.getId());
+        }
+        if (affected) {
+            r2LoadAppointments();
+        }
+    }
+
+    /**
+     * Loads the selected contact's appointments on a background thread
+     */
+    private void r2LoadAppointments() {
+        Contact contact = r2Contact.getValue();
+        if (contact == null) {
+            return;
+        }
+        appointmentTableView.setItems(FXCollections.observableArrayList());
+        appointmentTableView.setPlaceholder(new Label("Loading appointments..."));
+        DBExecutor.load(() -> DBModel.getAppointmentsForContact(contact), appointments -> {
+            if (contact == r2Contact.getValue()) {
+                populateTable(appointments);
+                appointmentTableView.setPlaceholder(new Label("No appointments for this contact."));
+            }
+        }, e -> appointmentTableView.setPlaceholder(new Label("Could not load: " + e.getMessage())));
     }
 
     /**
@@ -143,20 +226,28 @@ public class ReportsViewController extends ApptTableViewController {
      * All .setOnAction methods use lambdas to remove the override handle function and replace it with a single line.
      */
     private void r3Setup() {
-        ObservableList<Country> countries = DBModel.getAllCountries();
         r3Country.setConverter(Country.countryStringConverter);
-        r3Country.setItems(countries);
-        r3Country.getSelectionModel().selectFirst();
+        r3Run.setDisable(true);
+        DBExecutor.load(ReferenceDataCache::getAllCountries, countries -> {
+            r3Country.setItems(countries);
+            r3Country.getSelectionModel().selectFirst();
+            r3Run.setDisable(false);
+        }, e -> r3ReportLabel.setText("Could not load countries: " + e.getMessage()));
         r3Run.setOnAction(actionEvent -> {
-            List<Customer> customers = DBModel.getCustomersByCountry(r3Country.getValue());
-            List<Appointment> appointments = new ArrayList<>();
-            for (Customer customer : customers) {
-                appointments.addAll(DBModel.getAppointmentsForCustomer(customer));
-
+            Country country = r3Country.getValue();
+            if (country == null) {
+                return;
             }
-            String reportData = r3Country.getValue().getName() + " has " + customers.size() + " customer(s) with " +
-                    appointments.size() + " appointment(s) in the system.";
-            r3ReportLabel.setText(reportData);
+            r3Run.setDisable(true);
+            r3ReportLabel.setText("Running report...");
+            DBExecutor.load(() -> DBModel.getCountryReport(country), report -> {
+                r3Run.setDisable(false);
+                r3ReportLabel.setText(country.getName() + " has " + report.getCustomerCount() +
+                        " customer(s) with " + report.getAppointmentCount() + " appointment(s) in the system.");
+            }, e -> {
+                r3Run.setDisable(false);
+                r3ReportLabel.setText("Could not run report: " + e.getMessage());
+            });
         });
     }
 }
@@ -1,11 +1,23 @@
 package scheduling.ViewControllers;
 
+import helper.SceneLoadEvent;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.stage.Stage;
 import scheduling.Main;
+import scheduling.Model.DBModel;
+import scheduling.Model.DataPreloader;
+import scheduling.Model.ReferenceDataCache;
+import scheduling.Model.SyncService;
 import java.io.IOException;
-import java.util.Objects;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Base view controller class used for navigation
@@ -14,27 +26,151 @@ import java.util.Objects;
 public class ViewController {
 
     /**
-     * Loads a new scene based on fxml file name and specified width
+     * Views kept after their first load, with their widths.  Their controllers only build the view in initialize
+     * and load data in refresh, so they can be built before they are shown.  Forms and the login view read per-use
+     * data in initialize, so they are always loaded fresh.
+     */
+    private static final Map<String, Integer> CACHED_VIEWS = Map.of("MainMenu.fxml", 600, "Customers.fxml", 600,
+            "Appointments.fxml", 1000, "Reports.fxml", 700);
+
+    /**
+     * Loaded scenes and their controllers by fxml file name, only touched on the JavaFX application thread
+     */
+    private static final HashMap<String, CachedView> sceneCache = new HashMap<>();
+
+    /**
+     * Incremented on logout so scenes still queued to be built for the last user are dropped
+     */
+    private static int preloadGeneration = 0;
+
+    /**
+     * Loads a new scene based on fxml file name and specified width.  Cached views are shown again without
+     * re-parsing.  Every view has its refresh method called each time it is shown, including the first.  The
+     * primary stage is reused.  Covered by a SceneLoadEvent for flight recordings.
      * @param fxml file name of .fxml file in Views folder
      * @param width desired with of scene
      */
     protected void loadScene(String fxml, int width) {
-        Main.getPrimaryStage().close();
-        String resourceURL = "../Views/" + fxml;
-        Parent root = null;
-        try {
-            if (getClass().getResource(resourceURL) != null) {
-                root = FXMLLoader.load(Objects.requireNonNull(getClass().getResource(resourceURL)));
-            } else {
-                System.out.println("No resource URL Found");
+        SceneLoadEvent event = new SceneLoadEvent();
+        event.begin();
+        if (fxml.equals("Login.fxml")) {
+            preloadGeneration++;
+            sceneCache.clear();
+            SyncService.clearListeners();
+            ReferenceDataCache.invalidateAll();
+            DBModel.invalidateAppointmentIndexes();
+        }
+        CachedView view = sceneCache.get(fxml);
+        event.cached = view != null;
+        if (view == null) {
+            long parseStart = System.nanoTime();
+            FXMLLoader loader = parseView(fxml);
+            event.parseTime = System.nanoTime() - parseStart;
+            if (loader == null) {
+                return;
+            }
+            view = toCachedView(loader, width);
+            if (CACHED_VIEWS.containsKey(fxml)) {
+                sceneCache.put(fxml, view);
             }
+        }
+        if (view.controller != null) {
+            view.controller.refresh();
+        }
+        Stage stage = Main.getPrimaryStage();
+        stage.setScene(view.scene);
+        stage.sizeToScene();
+        if (!stage.isShowing()) {
+            stage.show();
+        }
+        event.fxml = fxml;
+        event.commit();
+    }
+
+    /**
+     * Parses an fxml file and runs its controller's initialize method, on the JavaFX application thread
+     * @param fxml file name of .fxml file in Views folder
+     * @return the loader holding the root and controller, or null if the file can't be loaded
+     */
+    private static FXMLLoader parseView(String fxml) {
+        URL url = ViewController.class.getResource("../Views/" + fxml);
+        if (url == null) {
+            System.out.println("No resource URL Found");
+            return null;
+        }
+        try {
+            FXMLLoader loader = new FXMLLoader(url);
+            loader.load();
+            return loader;
         } catch (IOException e) {
             e.printStackTrace();
+            return null;
         }
-        if (root != null) {
-            Main.getPrimaryStage().setScene(new Scene(root, width, 400));
-            Main.getPrimaryStage().show();
+    }
+
+    /**
+     * Builds the scene for a parsed view
+     * @param loader loader that parsed the view
+     * @param width desired with of scene
+     * @return the scene and its controller
+     */
+    private static CachedView toCachedView(FXMLLoader loader, int width) {
+        Parent root = loader.getRoot();
+        Object controller = loader.getController();
+        return new CachedView(new Scene(root, width, 400),
+                controller instanceof ViewController ? (ViewController) controller : null);
+    }
+
+    /**
+     * Prefetches the data the cached views show and warms the database on background threads, so the first
+     * navigation after login doesn't wait on the database
+     * @return a future completed once every data phase has finished
+     */
+    public static CompletableFuture<Void> preloadData() {
+        long start = System.nanoTime();
+        return DataPreloader.preload().thenRun(() ->
+                System.out.println("Preload finished in " + (System.nanoTime() - start) / 1_000_000 + " ms"));
+    }
+
+    /**
+     * Builds the scenes for the cached views that haven't been shown yet, so the first visit to each shows a
+     * finished scene.  Scenes can only be built on the JavaFX application thread, so one view is built per
+     * Platform.runLater, letting input and rendering run between them.  Called once login succeeds.
+     */
+    protected static void preloadScenes() {
+        preloadNext(new ArrayDeque<>(CACHED_VIEWS.keySet()), preloadGeneration);
+    }
+
+    /**
+     * Builds the next queued view on a later pulse, then queues the one after it
+     * @param remaining fxml file names still to build
+     * @param generation preloadGeneration when the preload started
+     */
+    private static void preloadNext(Queue<String> remaining, int generation) {
+        String fxml = remaining.poll();
+        if (fxml == null) {
+            return;
         }
+        Platform.runLater(() -> {
+            if (generation != preloadGeneration) {
+                return;
+            }
+            if (!sceneCache.containsKey(fxml)) {
+                FXMLLoader loader = parseView(fxml);
+                if (loader != null) {
+                    sceneCache.put(fxml, toCachedView(loader, CACHED_VIEWS.get(fxml)));
+                }
+            }
+            preloadNext(remaining, generation);
+        });
+    }
+
+    /**
+     * Called every time a view is shown, including the first, so it can load data for the logged in user and
+     * reload any that may have changed.  Cached views may be built before they are shown, so this is where
+     * they read the user and register listeners rather than initialize.  Does nothing unless overridden.
+     */
+    protected void refresh() {
     }
 
     /**
@@ -54,4 +190,17 @@ public class ViewController {
             System.exit(0);
         }
     }
+
+    /**
+     * A loaded scene and its controller
+     */
+    private static class CachedView {
+        private final Scene scene;
+        private final ViewController controller;
+
+        private CachedView(Scene scene, ViewController controller) {
+            this.scene = scene;
+            this.controller = controller;
+        }
+    }
 }